@@ -0,0 +1,220 @@
+/*
+ * Copyright 2019 Centre for Computational Geography.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.leeds.ccg.projects.fg;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.stream.Stream;
+import uk.ac.leeds.ccg.projects.fg.io.FG_GlacierSeries;
+
+/**
+ * Synthetic data generators for the benchmarks. The data are random but
+ * have the same shape as the real inputs: the same file layouts, similar
+ * value ranges and precision, and similar proportions of no data values.
+ * Each generator takes a seed so that runs are repeatable.
+ *
+ * @author Andy Turner
+ * @version 1.0.0
+ */
+public class BenchmarkData {
+
+    private BenchmarkData() {
+    }
+
+    /**
+     * Writes a cross section model output file. The first line is a header.
+     * Each following line is a time in the form "dd/MM/yyyy HH:mm" followed
+     * by a value for each column. Values are given to 3 decimal places. About
+     * a quarter of the values are 0 (dry) and about 1 in 20 are -999.
+     *
+     * @param file The file to write.
+     * @param nRows The number of rows (times).
+     * @param nCols The number of columns.
+     * @param maxValue The maximum value.
+     * @param seed The random seed.
+     * @throws IOException If encountered.
+     */
+    public static void writeCrossSection(Path file, int nRows, int nCols,
+            double maxValue, long seed) throws IOException {
+        Random r = new Random(seed);
+        try (BufferedWriter w = Files.newBufferedWriter(file)) {
+            w.write("Time");
+            for (int c = 0; c < nCols; c++) {
+                w.write(",Point" + c);
+            }
+            w.newLine();
+            for (int row = 0; row < nRows; row++) {
+                // Rows are 5 minutes apart starting at 17/04/2012 00:00
+                int m = row * 5;
+                int day = 17 + m / 1440;
+                int hour = (m / 60) % 24;
+                int minute = m % 60;
+                w.write(String.format("%02d/04/2012 %02d:%02d", day, hour,
+                        minute));
+                for (int c = 0; c < nCols; c++) {
+                    w.write(',');
+                    int p = r.nextInt(20);
+                    if (p < 5) {
+                        w.write('0');
+                    } else if (p == 5) {
+                        w.write("-999");
+                    } else {
+                        w.write(Double.toString(
+                                Math.round(r.nextDouble() * maxValue * 1000)
+                                / 1000.0d));
+                    }
+                }
+                w.newLine();
+            }
+        }
+    }
+
+    /**
+     * Writes an ESRI ASCII grid of stream temperatures. Values are given to
+     * 2 decimal places and are mostly between 4 and 20. About 1 in 10 cells
+     * are no data and about 1 in 50 are 0 or 1, which are values that
+     * {@link TemperatureGridDataProcessing#getStatistics} ignores.
+     *
+     * @param file The file to write.
+     * @param nRows The number of rows.
+     * @param nCols The number of columns.
+     * @param seed The random seed.
+     * @throws IOException If encountered.
+     */
+    public static void writeTemperatureGrid(Path file, int nRows, int nCols,
+            long seed) throws IOException {
+        Random r = new Random(seed);
+        try (BufferedWriter w = Files.newBufferedWriter(file)) {
+            w.write("ncols " + nCols);
+            w.newLine();
+            w.write("nrows " + nRows);
+            w.newLine();
+            w.write("xllcorner 0");
+            w.newLine();
+            w.write("yllcorner 0");
+            w.newLine();
+            w.write("cellsize 1");
+            w.newLine();
+            w.write("NODATA_value -9999");
+            w.newLine();
+            for (int row = 0; row < nRows; row++) {
+                for (int col = 0; col < nCols; col++) {
+                    if (col > 0) {
+                        w.write(' ');
+                    }
+                    int p = r.nextInt(100);
+                    if (p < 10) {
+                        w.write("-9999");
+                    } else if (p == 10) {
+                        w.write('0');
+                    } else if (p == 11) {
+                        w.write('1');
+                    } else {
+                        double v = 12.0d + r.nextGaussian() * 2.5d;
+                        v = Math.max(4.0d, Math.min(20.0d, v));
+                        w.write(Double.toString(Math.round(v * 100) / 100.0d));
+                    }
+                }
+                w.newLine();
+            }
+        }
+    }
+
+    /**
+     * Writes a Swiss slope area file with a header and the fields: flowacc,
+     * area (km2), slope_25_(%), proglac_ID, COUNT. Each glacier has a hump
+     * shaped relationship between log(slope) and log(area) with noise. About
+     * 1 in 10 lines have an ID of 0 which are not part of any glacier.
+     *
+     * @param file The file to write.
+     * @param nGlaciers The number of glaciers.
+     * @param nPoints The number of points for each glacier.
+     * @param seed The random seed.
+     * @throws IOException If encountered.
+     */
+    public static void writeSwissData(Path file, int nGlaciers, int nPoints,
+            long seed) throws IOException {
+        Random r = new Random(seed);
+        try (BufferedWriter w = Files.newBufferedWriter(file)) {
+            w.write("flowacc,area (km2),slope_25_(%),proglac_ID,COUNT");
+            w.newLine();
+            int count = 0;
+            for (int p = 0; p < nPoints; p++) {
+                for (int id = 1; id <= nGlaciers; id++) {
+                    double[] xy = getSlopeArea(r);
+                    double slope = Math.pow(10.0d, xy[0]);
+                    double area = Math.pow(10.0d, xy[1]);
+                    int ID = r.nextInt(10) == 0 ? 0 : id;
+                    w.write(String.format("%.8f,%.8f,%.11f,%d,%d",
+                            area / 0.000625d, area, slope, ID, count++));
+                    w.newLine();
+                }
+            }
+        }
+    }
+
+    /**
+     * Generates the (log(slope), log(area)) points for a single glacier.
+     *
+     * @param nPoints The number of points.
+     * @param seed The random seed.
+     * @return The data.
+     */
+    public static FG_GlacierSeries getSlopeAreaData(int nPoints, long seed) {
+        Random r = new Random(seed);
+        FG_GlacierSeries s = new FG_GlacierSeries(1);
+        for (int p = 0; p < nPoints; p++) {
+            double[] v = getSlopeArea(r);
+            s.add(v[0], v[1]);
+        }
+        return s;
+    }
+
+    /**
+     * @param r The random number generator.
+     * @return A (log(slope), log(area)) point near a downward parabola that
+     * peaks at log(slope) = 1.
+     */
+    private static double[] getSlopeArea(Random r) {
+        double x = 0.2d + r.nextDouble() * 1.6d;
+        double y = -2.0d - 1.5d * (x - 1.0d) * (x - 1.0d)
+                + r.nextGaussian() * 0.3d;
+        return new double[]{x, y};
+    }
+
+    /**
+     * Deletes dir and everything in it.
+     *
+     * @param dir The directory to delete.
+     * @throws IOException If encountered.
+     */
+    public static void delete(Path dir) throws IOException {
+        if (dir == null || !Files.exists(dir)) {
+            return;
+        }
+        try (Stream<Path> s = Files.walk(dir)) {
+            Path[] paths = s.sorted(Comparator.reverseOrder())
+                    .toArray(Path[]::new);
+            for (Path p : paths) {
+                Files.delete(p);
+            }
+        }
+    }
+}
@@ -0,0 +1,167 @@
+/*
+ * Copyright 2019 Centre for Computational Geography.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.leeds.ccg.projects.fg;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StreamTokenizer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import uk.ac.leeds.ccg.generic.io.Generic_IO;
+import uk.ac.leeds.ccg.projects.fg.core.FG_Variable;
+
+/**
+ * Benchmarks for reading cross section files and calculating the row, column
+ * and total statistics for a variable. {@link #readIntoLists(Blackhole)} is
+ * a baseline that reads a file the way it was read before
+ * {@link uk.ac.leeds.ccg.projects.fg.io.FG_CrossSectionReader}.
+ *
+ * @author Andy Turner
+ * @version 1.0.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Dfg.verbosity=0")
+public class CrossSectionProcessingBenchmark {
+
+    /**
+     * The number of rows (times) in the input.
+     */
+    @Param({"1000", "10000"})
+    public int nRows;
+
+    /**
+     * The number of columns (points across the cross section) in the input.
+     */
+    @Param({"100"})
+    public int nCols;
+
+    /**
+     * Whether rows are processed as they are read.
+     */
+    @Param({"false", "true"})
+    public boolean streaming;
+
+    private Path dir;
+    private Path indir;
+    private Path rowOutdir;
+    private Path colOutdir;
+    private Path inputFile;
+    private CrossSectionProcessing p;
+
+    @Setup
+    public void setup() throws IOException {
+        dir = Files.createTempDirectory("fgbench");
+        indir = Files.createDirectories(dir.resolve("input"));
+        rowOutdir = Files.createDirectories(dir.resolve("row"));
+        colOutdir = Files.createDirectories(dir.resolve("col"));
+        inputFile = indir.resolve(FG_Variable.DEPTH.name + " 1.csv");
+        BenchmarkData.writeCrossSection(inputFile, nRows, nCols, 12.0d, 1L);
+        p = new CrossSectionProcessing(null);
+        p.setStreaming(streaming);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        BenchmarkData.delete(dir);
+    }
+
+    @Benchmark
+    public void readIntoLists(Blackhole bh) throws IOException {
+        List<String> times = new ArrayList<>();
+        List<double[]> values = new ArrayList<>();
+        readIntoLists(inputFile, times, values);
+        bh.consume(times);
+        bh.consume(values);
+    }
+
+    @Benchmark
+    public String processVariable() throws IOException {
+        return p.processVariable(1, FG_Variable.DEPTH, indir, rowOutdir,
+                colOutdir);
+    }
+
+    /**
+     * Reads inputFile line by line using a StreamTokenizer, splitting each
+     * line and parsing each value with {@link Double#valueOf(String)}.
+     *
+     * @param inputFile The input file.
+     * @param times The list to add the time of each row to.
+     * @param values The list to add the values of each row to. Empty values
+     * and values of 0 and -999 are read as 0.
+     * @throws IOException If encountered.
+     */
+    static void readIntoLists(Path inputFile, List<String> times,
+            List<double[]> values) throws IOException {
+        try (BufferedReader br = Generic_IO.getBufferedReader(inputFile)) {
+            StreamTokenizer st = new StreamTokenizer(br);
+            st.resetSyntax();
+            Generic_IO.setStreamTokenizerSyntax1(st);
+            st.wordChars('(', '(');
+            st.wordChars(')', ')');
+            st.wordChars(':', ':');
+            st.wordChars('^', '^');
+            st.wordChars('/', '/');
+            String line = null;
+            st.nextToken();
+            // Skip header
+            st.nextToken();
+            st.nextToken();
+            int tokenType = st.nextToken();
+            while (tokenType != StreamTokenizer.TT_EOF) {
+                switch (tokenType) {
+                    case StreamTokenizer.TT_EOL:
+                        String[] fields = line.split(",");
+                        double[] row = new double[fields.length - 1];
+                        for (int v = 1; v < fields.length; v++) {
+                            if (!fields[v].trim().isEmpty()) {
+                                double value = Double.valueOf(fields[v]);
+                                if (value != 0 && value != -999) {
+                                    row[v - 1] = value;
+                                }
+                            }
+                        }
+                        times.add(fields[0]);
+                        values.add(row);
+                        break;
+                    case StreamTokenizer.TT_WORD:
+                        line = st.sval;
+                        break;
+                }
+                tokenType = st.nextToken();
+            }
+        }
+    }
+}
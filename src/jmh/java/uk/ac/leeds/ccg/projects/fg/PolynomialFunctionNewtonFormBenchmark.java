@@ -0,0 +1,114 @@
+/*
+ * Copyright 2019 Centre for Computational Geography.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.leeds.ccg.projects.fg;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.apache.commons.math.FunctionEvaluationException;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Benchmarks for evaluating a {@link PolynomialFunctionNewtonForm} at many
+ * points.
+ *
+ * @author Andy Turner
+ * @version 1.0.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class PolynomialFunctionNewtonFormBenchmark {
+
+    /**
+     * The degree of the polynomial.
+     */
+    @Param({"2", "5"})
+    public int degree;
+
+    /**
+     * The number of points to evaluate at.
+     */
+    @Param({"10000"})
+    public int n;
+
+    private double[] a;
+    private double[] c;
+    private double[] z;
+    private double[] y;
+    private double[] out;
+    private PolynomialFunctionNewtonForm f;
+
+    @Setup
+    public void setup() {
+        Random r = new Random(1L);
+        a = new double[degree + 1];
+        c = new double[degree];
+        for (int i = 0; i < degree; i++) {
+            a[i] = r.nextGaussian();
+            c[i] = r.nextDouble() * 2.0d;
+        }
+        a[degree] = r.nextGaussian();
+        z = new double[n];
+        y = new double[n];
+        for (int i = 0; i < n; i++) {
+            z[i] = r.nextDouble() * 2.0d;
+            y[i] = r.nextGaussian();
+        }
+        out = new double[n];
+        f = new PolynomialFunctionNewtonForm(a, c);
+    }
+
+    @Benchmark
+    public void value(Blackhole bh) throws FunctionEvaluationException {
+        for (int i = 0; i < n; i++) {
+            bh.consume(f.value(z[i]));
+        }
+    }
+
+    @Benchmark
+    public double evaluate() throws FunctionEvaluationException {
+        double s = 0.0d;
+        for (int i = 0; i < n; i++) {
+            s += PolynomialFunctionNewtonForm.evaluate(a, c, z[i]);
+        }
+        return s;
+    }
+
+    @Benchmark
+    public double[] evaluateBatch() {
+        f.evaluate(z, out);
+        return out;
+    }
+
+    @Benchmark
+    public double meanAbsoluteResidual() {
+        return f.meanAbsoluteResidual(z, y, n);
+    }
+}
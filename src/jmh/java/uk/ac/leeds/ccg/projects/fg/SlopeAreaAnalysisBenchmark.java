@@ -0,0 +1,87 @@
+/*
+ * Copyright 2019 Centre for Computational Geography.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.leeds.ccg.projects.fg;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import uk.ac.leeds.ccg.generic.core.Generic_Environment;
+import uk.ac.leeds.ccg.generic.io.Generic_Defaults;
+import uk.ac.leeds.ccg.projects.fg.core.FG_Environment;
+import uk.ac.leeds.ccg.projects.fg.io.FG_GlacierSeriesMap;
+
+/**
+ * Benchmarks for reading slope area data.
+ *
+ * @author Andy Turner
+ * @version 1.0.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Dfg.verbosity=0")
+public class SlopeAreaAnalysisBenchmark {
+
+    /**
+     * The number of glaciers.
+     */
+    @Param({"100"})
+    public int nGlaciers;
+
+    /**
+     * The number of points for each glacier.
+     */
+    @Param({"100", "1000"})
+    public int nPoints;
+
+    private Path dir;
+    private Path inputFile;
+    private SlopeAreaAnalysis p;
+
+    @Setup
+    public void setup() throws IOException {
+        dir = Files.createTempDirectory("fgbench");
+        inputFile = dir.resolve("slope_area2.csv");
+        BenchmarkData.writeSwissData(inputFile, nGlaciers, nPoints, 1L);
+        p = new SlopeAreaAnalysis(new FG_Environment(new Generic_Environment(
+                new Generic_Defaults(dir))));
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        BenchmarkData.delete(dir);
+    }
+
+    @Benchmark
+    public FG_GlacierSeriesMap readSwissData() throws IOException {
+        return p.readSwissData(inputFile);
+    }
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright 2019 Centre for Computational Geography.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.leeds.ccg.projects.fg;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.math.RoundingMode;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import uk.ac.leeds.ccg.generic.core.Generic_Environment;
+import uk.ac.leeds.ccg.generic.io.Generic_Defaults;
+import uk.ac.leeds.ccg.projects.fg.io.FG_GlacierSeries;
+import uk.ac.leeds.ccg.projects.fg.stats.FG_SlopeAreaFit;
+
+/**
+ * Benchmarks for fitting a polynomial to the slope area data of a glacier.
+ * Constructing a {@link SlopeAreaScatterPlot} fits the polynomial and
+ * calculates the best fit line, hump and MRMSE, but does not draw the plot.
+ * An {@link FG_SlopeAreaFit} calculates the numbers without the chart. The
+ * power sums it fits from are accumulated when the data are generated.
+ *
+ * @author Andy Turner
+ * @version 1.0.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Dfg.verbosity=0")
+public class SlopeAreaScatterPlotBenchmark {
+
+    /**
+     * The number of points.
+     */
+    @Param({"100", "1000", "10000"})
+    public int nPoints;
+
+    /**
+     * The degree of the polynomial.
+     */
+    @Param({"2"})
+    public int degree;
+
+    private Path dir;
+    private Generic_Environment env;
+    private ExecutorService es;
+    private FG_GlacierSeries data;
+
+    @Setup
+    public void setup() throws IOException {
+        dir = Files.createTempDirectory("fgbench");
+        env = new Generic_Environment(new Generic_Defaults(dir));
+        es = Executors.newSingleThreadExecutor();
+        data = BenchmarkData.getSlopeAreaData(nPoints, 1L);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        es.shutdownNow();
+        BenchmarkData.delete(dir);
+    }
+
+    @Benchmark
+    public SlopeAreaScatterPlot fit() {
+        return new SlopeAreaScatterPlot(env, degree, data, es,
+                dir.resolve("plot.PNG"), "PNG", "GlacierID 1", 500, 500,
+                "x = log(Slope)", "y = log(Upstream Accumulation Area)",
+                false, 10, 3, RoundingMode.HALF_UP);
+    }
+
+    @Benchmark
+    public FG_SlopeAreaFit fitOnly() {
+        return new FG_SlopeAreaFit(data, degree, 3, RoundingMode.HALF_UP);
+    }
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright 2019 Centre for Computational Geography.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.leeds.ccg.projects.fg;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import uk.ac.leeds.ccg.generic.core.Generic_Environment;
+import uk.ac.leeds.ccg.generic.io.Generic_Defaults;
+import uk.ac.leeds.ccg.grids.core.Grids_Environment;
+import uk.ac.leeds.ccg.projects.fg.stats.FG_StatsEngine;
+
+/**
+ * Benchmarks for calculating the statistics of a stream temperature grid.
+ *
+ * @author Andy Turner
+ * @version 1.0.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Dfg.verbosity=0")
+public class TemperatureGridDataProcessingBenchmark {
+
+    /**
+     * The number of rows and columns in the grid.
+     */
+    @Param({"100", "500", "1000"})
+    public int size;
+
+    /**
+     * The interval range.
+     */
+    @Param({"0.25"})
+    public double intervalRange;
+
+    /**
+     * The numeric engine.
+     */
+    @Param({"DOUBLE", "BIG_DECIMAL"})
+    public FG_StatsEngine engine;
+
+    /**
+     * Whether the grid is cached. If true, the cache is written in the first
+     * invocation and read in all the others.
+     */
+    @Param({"false", "true"})
+    public boolean gridCache;
+
+    private Path dir;
+    private Path inputFile;
+    private Path outdir;
+    private TemperatureGridDataProcessing p;
+
+    @Setup
+    public void setup() throws Exception {
+        dir = Files.createTempDirectory("fgbench");
+        outdir = Files.createDirectories(dir.resolve("output"));
+        inputFile = dir.resolve("26t1200.txt");
+        BenchmarkData.writeTemperatureGrid(inputFile, size, size, 1L);
+        p = new TemperatureGridDataProcessing(new Grids_Environment(
+                new Generic_Environment(new Generic_Defaults(dir))));
+        p.setEngine(engine);
+        p.setGridCache(gridCache);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        BenchmarkData.delete(dir);
+    }
+
+    @Benchmark
+    public Object[] getStatistics() throws Exception {
+        return p.getStatistics(inputFile, intervalRange, 0.0d, outdir);
+    }
+}
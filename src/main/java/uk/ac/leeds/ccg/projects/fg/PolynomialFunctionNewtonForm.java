@@ -58,6 +58,13 @@ public class PolynomialFunctionNewtonForm implements UnivariateRealFunction {
      */ 
     private boolean coefficientsComputed; 
  
+    /**
+     * The number of points evaluated together by the batch methods. A block 
+     * of values is small enough to stay in the L1 cache while each term is 
+     * applied to it. 
+     */ 
+    private static final int BLOCK_SIZE = 256; 
+ 
     /**
      * Construct a Newton polynomial with the given a[] and c[]. The order of 
      * centers are important in that if c[] shuffle, then values of a[] would 
@@ -81,7 +88,8 @@ public class PolynomialFunctionNewtonForm implements UnivariateRealFunction {
     } 
  
     /**
-     * Calculate the function value at the given point. 
+     * Calculate the function value at the given point. The arrays were 
+     * verified on construction so they are not verified again. 
      * 
      * @param z the point at which the function value is to be computed 
      * @return the function value 
@@ -89,7 +97,125 @@ public class PolynomialFunctionNewtonForm implements UnivariateRealFunction {
      * @see UnivariateRealFunction#value(double) 
      */ 
     public double value(double z) throws FunctionEvaluationException { 
-       return evaluate(a, c, z); 
+        int n = c.length; 
+        double value = a[n]; 
+        for (int i = n-1; i >= 0; i--) { 
+            value = a[i] + (z - c[i]) * value; 
+        } 
+        return value; 
+    } 
+ 
+    /**
+     * Calculate the function values at the given points. Each value is the 
+     * same as that returned by {@link #value(double)}, but the points are 
+     * evaluated a block at a time applying each term of the nested 
+     * multiplication to the whole block, which is a loop the JIT compiler 
+     * can vectorise. 
+     * 
+     * @param z the points at which the function values are to be computed 
+     * @param out the array to write the function values to, which must be at 
+     * least as long as z 
+     * @throws IllegalArgumentException if out is shorter than z 
+     */ 
+    public void evaluate(double z[], double out[]) 
+        throws IllegalArgumentException { 
+ 
+        verifyLength(out, z.length); 
+        for (int from = 0; from < z.length; from += BLOCK_SIZE) { 
+            evaluate(z, from, Math.min(BLOCK_SIZE, z.length - from), out, 
+                    from); 
+        } 
+    } 
+ 
+    /**
+     * Calculate the residuals y[j] - p(z[j]) of the given observations. 
+     * 
+     * @param z the abscissae of the observations 
+     * @param y the observed values, which must be at least as long as z 
+     * @param out the array to write the residuals to, which must be at least 
+     * as long as z 
+     * @throws IllegalArgumentException if y or out is shorter than z 
+     */ 
+    public void residuals(double z[], double y[], double out[]) 
+        throws IllegalArgumentException { 
+ 
+        verifyLength(y, z.length); 
+        evaluate(z, out); 
+        for (int j = 0; j < z.length; j++) { 
+            out[j] = y[j] - out[j]; 
+        } 
+    } 
+ 
+    /**
+     * Calculate the mean of the absolute residuals |y[j] - p(z[j])| of the 
+     * first n observations, which is the MRMSE of a fit. The polynomial is 
+     * evaluated a block at a time into a small buffer and the absolute 
+     * residuals are summed in order as each block is done. 
+     * 
+     * @param z the abscissae of the observations 
+     * @param y the observed values 
+     * @param n the number of observations 
+     * @return the mean of the absolute residuals 
+     * @throws IllegalArgumentException if z or y is shorter than n 
+     */ 
+    public double meanAbsoluteResidual(double z[], double y[], int n) 
+        throws IllegalArgumentException { 
+ 
+        verifyLength(z, n); 
+        verifyLength(y, n); 
+        double buf[] = new double[Math.min(BLOCK_SIZE, n)]; 
+        double sum = 0.0; 
+        for (int from = 0; from < n; from += BLOCK_SIZE) { 
+            int len = Math.min(BLOCK_SIZE, n - from); 
+            evaluate(z, from, len, buf, 0); 
+            for (int j = 0; j < len; j++) { 
+                sum += Math.abs(y[from + j] - buf[j]); 
+            } 
+        } 
+        return sum / n; 
+    } 
+ 
+    /**
+     * Evaluate len points of z from index from into out from index outFrom. 
+     * Each term is applied to all the points before the next, so the inner 
+     * loop is a simple element wise loop over arrays. 
+     * 
+     * @param z the points 
+     * @param from the index in z of the first point 
+     * @param len the number of points 
+     * @param out the array to write the function values to 
+     * @param outFrom the index in out for the first value 
+     */ 
+    private void evaluate(double z[], int from, int len, double out[], 
+            int outFrom) { 
+        int n = c.length; 
+        double an = a[n]; 
+        for (int j = 0; j < len; j++) { 
+            out[outFrom + j] = an; 
+        } 
+        for (int i = n-1; i >= 0; i--) { 
+            double ai = a[i]; 
+            double ci = c[i]; 
+            for (int j = 0; j < len; j++) { 
+                out[outFrom + j] = ai + (z[from + j] - ci) * out[outFrom + j]; 
+            } 
+        } 
+    } 
+ 
+    /**
+     * Verifies that an array is at least a given length. 
+     * 
+     * @param x the array 
+     * @param n the length 
+     * @throws IllegalArgumentException if x is shorter than n 
+     */ 
+    private static void verifyLength(double x[], int n) 
+        throws IllegalArgumentException { 
+ 
+        if (x.length < n) { 
+            throw MathRuntimeException.createIllegalArgumentException( 
+                  LocalizedFormats.DIMENSIONS_MISMATCH_SIMPLE, x.length, n); 
+        } 
     } 
  
     /**
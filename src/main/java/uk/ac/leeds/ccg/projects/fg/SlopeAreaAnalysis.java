@@ -15,34 +15,41 @@
  */
 package uk.ac.leeds.ccg.projects.fg;
 
-import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.io.PrintWriter;
-import java.io.StreamTokenizer;
-import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
-import java.util.Iterator;
-import java.util.TreeMap;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 //import org.apache.commons.math3.analysis.polynomials.PolynomialSplineFunction;
 //import org.apache.commons.math.analysis.polynomials.PolynomialSplineFunction;
-import uk.ac.leeds.ccg.chart.data.Data_BiBigDecimal;
 import uk.ac.leeds.ccg.generic.core.Generic_Environment;
 import uk.ac.leeds.ccg.generic.io.Generic_Defaults;
 import uk.ac.leeds.ccg.generic.io.Generic_IO;
-import uk.ac.leeds.ccg.math.Math_BigDecimal;
 //import uk.ac.leeds.ccg.chart.examples.Chart_Scatter;
 import uk.ac.leeds.ccg.projects.fg.core.FG_Environment;
+import uk.ac.leeds.ccg.projects.fg.core.FG_Log;
 import uk.ac.leeds.ccg.projects.fg.core.FG_Object;
+import uk.ac.leeds.ccg.projects.fg.io.FG_CSVWriter;
+import uk.ac.leeds.ccg.projects.fg.io.FG_GlacierSeries;
+import uk.ac.leeds.ccg.projects.fg.io.FG_GlacierSeriesMap;
+import uk.ac.leeds.ccg.projects.fg.io.FG_SlopeAreaReader;
+import uk.ac.leeds.ccg.projects.fg.stats.FG_PolynomialSelection;
+import uk.ac.leeds.ccg.projects.fg.stats.FG_SlopeAreaFit;
 
 /**
  * SlopeAreaAnalysis
@@ -54,10 +61,78 @@ public class SlopeAreaAnalysis extends FG_Object {
 
     private static final long serialVersionUID = 1L;
 
+    private static final Logger LOG = FG_Log.getLogger(
+            SlopeAreaAnalysis.class);
+
+    /**
+     * The number of threads used to fit curves.
+     */
+    protected int nThreads = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * The number of threads used to render plots.
+     */
+    protected int nRenderThreads = Math.max(1, nThreads / 2);
+
+    /**
+     * The IDs of the glaciers that plots are rendered for in ascending
+     * order, or null to render plots for all glaciers.
+     */
+    protected int[] renderIDs;
+
+    /**
+     * The maximum degree of polynomial fitted for choosing the degree, or 0
+     * if the degree is not chosen.
+     */
+    protected int selectionMaxDegree;
+
     public SlopeAreaAnalysis(FG_Environment e) {
         super(e);
     }
 
+    /**
+     * @param nThreads The number of threads used to fit curves.
+     * @param nRenderThreads The number of threads used to render plots. Each
+     * plot being rendered holds an image in memory.
+     */
+    public void setConcurrency(int nThreads, int nRenderThreads) {
+        this.nThreads = nThreads;
+        this.nRenderThreads = nRenderThreads;
+    }
+
+    /**
+     * Sets the glaciers that plots are rendered for. With no IDs the curves
+     * are fitted and the summary written without creating any charts.
+     *
+     * @param renderIDs The IDs of the glaciers that plots are rendered for,
+     * or null to render plots for all glaciers.
+     */
+    public void setRenderIDs(int... renderIDs) {
+        if (renderIDs == null) {
+            this.renderIDs = null;
+        } else {
+            this.renderIDs = renderIDs.clone();
+            Arrays.sort(this.renderIDs);
+        }
+    }
+
+    /**
+     * @param selectionMaxDegree If greater than 0, polynomials of degree 1 to
+     * selectionMaxDegree are fitted to each glacier and compared by
+     * {@link #runModelSelection(FG_GlacierSeriesMap, Path, int, int)}.
+     */
+    public void setModelSelection(int selectionMaxDegree) {
+        this.selectionMaxDegree = selectionMaxDegree;
+    }
+
+    /**
+     * @param ID The glacier ID.
+     * @return Whether a plot is rendered for glacier ID.
+     */
+    protected boolean isRendered(int ID) {
+        return renderIDs == null || Arrays.binarySearch(renderIDs, ID) >= 0;
+    }
+
     /**
      * @param args the command line arguments
      */
@@ -71,8 +146,6 @@ public class SlopeAreaAnalysis extends FG_Object {
         }
     }
 
-    private static String sComma = ",";
-
     public void run() throws FileNotFoundException, IOException {
 
         // Main switches
@@ -93,10 +166,15 @@ public class SlopeAreaAnalysis extends FG_Object {
             Path swissFileOut2 = Paths.get(swissDirOut.toString(),
                     //"SwissID_LogSlope.txt");
                     "SwissID_Slope.txt");
-            System.out.println("Swiss");
-            TreeMap<Integer, Object[]> swissData = readSwissData(swissFileIn);
+            LOG.info("Swiss");
+            FG_GlacierSeriesMap swissData = readSwissData(swissFileIn);
             PrintDataSummary(swissData);
             run(swissData, swissDirOut, swissFileOut2, minNumberOfDataPoints);
+            if (selectionMaxDegree > 0) {
+                runModelSelection(swissData, Paths.get(swissDirOut.toString(),
+                        "SwissID_ModelSelection.csv"), selectionMaxDegree,
+                        minNumberOfDataPoints);
+            }
         }
         if (runAustria) {
             Path austriaDirOut = Paths.get(dirOut.toString(), "austria");
@@ -104,19 +182,40 @@ public class SlopeAreaAnalysis extends FG_Object {
             Path austriaFileOut2 = Paths.get(austriaDirOut.toString(),
                     //"AustriaID_LogSlope.txt");
                     "AustriaID_Slope.txt");
-            System.out.println("Austria");
-            TreeMap<Integer, Object[]> austriaData = readAustriaData(austriaFileIn);
+            LOG.info("Austria");
+            FG_GlacierSeriesMap austriaData = readAustriaData(austriaFileIn);
             PrintDataSummary(austriaData);
             run(austriaData, austriaDirOut, austriaFileOut2, minNumberOfDataPoints);
+            if (selectionMaxDegree > 0) {
+                runModelSelection(austriaData, Paths.get(
+                        austriaDirOut.toString(),
+                        "AustriaID_ModelSelection.csv"), selectionMaxDegree,
+                        minNumberOfDataPoints);
+            }
         }
     }
 
-    public void run(TreeMap<Integer, Object[]> allData, Path outDir,
+    /**
+     * Fits a curve to the data of each glacier that has at least
+     * minNumberOfDataPoints points and renders a scatter plot of it if the
+     * glacier is one of {@link #renderIDs}. Curves are fitted concurrently by
+     * {@link #nThreads} threads with an {@link FG_SlopeAreaFit} and each plot
+     * is then handed to a pool of {@link #nRenderThreads} threads to be
+     * rendered. At most 2 * {@link #nRenderThreads} fitted plots wait to be
+     * rendered at any time, so fitting waits for rendering rather than
+     * holding every plot in memory. The slope at the hump of each glacier
+     * that has one is written to outFile2 in ID order whatever the number of
+     * threads.
+     *
+     * @param allData The data.
+     * @param outDir The directory for the plots.
+     * @param outFile2 The file for the slope at the hump of each glacier.
+     * @param minNumberOfDataPoints The minimum number of points for a glacier
+     * to be fitted.
+     * @throws IOException If encountered.
+     */
+    public void run(FG_GlacierSeriesMap allData, Path outDir,
             Path outFile2, int minNumberOfDataPoints) throws IOException {
-        Path outfile;
-        PrintWriter pw = Generic_IO.getPrintWriter(outFile2, false);
-        //pw.println("ID, log(Slope)");
-        pw.println("ID, Slope");
         int dataWidth = 500;//400;//250;
         int dataHeight = 500;//657;
         String xAxisLabel = "x = log(Slope)";
@@ -127,269 +226,279 @@ public class SlopeAreaAnalysis extends FG_Object {
         int decimalPlacePrecisionForCalculations = 10;
         int decimalPlacePrecisionForDisplay = 3;
         RoundingMode aRoundingMode = RoundingMode.HALF_UP;
-        ExecutorService executorService = Executors.newSingleThreadExecutor();
-        SlopeAreaScatterPlot plot;
-
         String format = "PNG";
-        String title;
-
-        Iterator<Integer> ite;
-        ite = allData.keySet().iterator();
-        int ID;
-        Object[] data;
-        while (ite.hasNext()) {
-            ID = ite.next();
-            //if (ID == 388) {
-
-            data = allData.get(ID);
-            ArrayList<Data_BiBigDecimal> xy = (ArrayList<Data_BiBigDecimal>) data[0];
-            int np = xy.size();
-            for (int degree = 2; degree < 3; degree++) {
-                title = "GlacierID " + ID + ", n = " + np;
-                //title += ", degree = " + degree;
-                Path outDir2 = Paths.get(outDir.toString(), "degree" + degree);
-                Files.createDirectories(outDir2);
-                outfile = Paths.get(outDir2.toString(), "SlopeUAAScatterPlot" + ID + ".PNG");
-                if (np >= minNumberOfDataPoints) {
-                    plot = new SlopeAreaScatterPlot(env.env,
-                            degree,
-                            data,
-                            executorService,
-                            outfile,
-                            format,
-                            title,
-                            dataWidth,
-                            dataHeight,
-                            xAxisLabel,
-                            yAxisLabel,
-                            drawOriginLinesOnPlot,
-                            decimalPlacePrecisionForCalculations,
-                            decimalPlacePrecisionForDisplay,
-                            aRoundingMode);
-                    //plot.setData(plot.getDefaultData());
-                    //plot.setStartAgeOfEndYearInterval(0); // To avoid null pointer
-                    plot.run();
-                    if (plot.isHump) {
-                        System.out.println("" + ID + ", " + plot.xAtMaxy2);
-                        double x = Math.pow(10.0d, plot.xAtMaxy2);
-                        //pw.println("" + ID + ", " + plot.xAtMaxy2);
-                        pw.println("" + ID + ", " + x);
+        int degree = 2;
+        Path outDir2 = Paths.get(outDir.toString(), "degree" + degree);
+        if (renderIDs == null || renderIDs.length > 0) {
+            Files.createDirectories(outDir2);
+        }
+        int threads = Math.max(1, nThreads);
+        int renderThreads = Math.max(1, nRenderThreads);
+        ExecutorService fitES = Executors.newFixedThreadPool(threads);
+        ExecutorService renderES = Executors.newFixedThreadPool(renderThreads);
+        // For the charts to write their images.
+        ExecutorService executorService = Executors.newFixedThreadPool(
+                renderThreads);
+        Semaphore unrendered = new Semaphore(2 * renderThreads);
+        List<FG_GlacierSeries> fitted = new ArrayList<>();
+        List<Future<Double>> results = new ArrayList<>();
+        try (PrintWriter pw = Generic_IO.getPrintWriter(outFile2, false)) {
+            //pw.println("ID, log(Slope)");
+            pw.println("ID, Slope");
+            for (FG_GlacierSeries data : allData.toArray()) {
+                if (data.n >= minNumberOfDataPoints) {
+                    fitted.add(data);
+                    results.add(fitES.submit(() -> {
+                        FG_SlopeAreaFit fit = new FG_SlopeAreaFit(data,
+                                degree, decimalPlacePrecisionForDisplay,
+                                aRoundingMode);
+                        int ID = data.id;
+                        if (!isRendered(ID)) {
+                            return fit.isHump ? fit.xAtMaxy2 : null;
+                        }
+                        String title = "GlacierID " + ID + ", n = " + data.n;
+                        //title += ", degree = " + degree;
+                        Path outfile = Paths.get(outDir2.toString(),
+                                "SlopeUAAScatterPlot" + ID + ".PNG");
+                        // Acquire before creating the plot so that there are
+                        // at most 2 * renderThreads plots at any time.
+                        unrendered.acquire();
+                        try {
+                            SlopeAreaScatterPlot plot = new SlopeAreaScatterPlot(
+                                    env.env,
+                                    fit,
+                                    executorService,
+                                    outfile,
+                                    format,
+                                    title,
+                                    dataWidth,
+                                    dataHeight,
+                                    xAxisLabel,
+                                    yAxisLabel,
+                                    drawOriginLinesOnPlot,
+                                    decimalPlacePrecisionForCalculations,
+                                    decimalPlacePrecisionForDisplay,
+                                    aRoundingMode);
+                            renderES.execute(() -> {
+                                try {
+                                    plot.run();
+                                } catch (RuntimeException ex) {
+                                    LOG.log(Level.SEVERE, "Rendering "
+                                            + outfile, ex);
+                                } finally {
+                                    unrendered.release();
+                                }
+                            });
+                        } catch (RuntimeException | Error e) {
+                            unrendered.release();
+                            throw e;
+                        }
+                        return fit.isHump ? fit.xAtMaxy2 : null;
+                    }));
+                }
+            }
+            for (int i = 0; i < results.size(); i++) {
+                Double xAtMaxy2 = get(results.get(i));
+                if (xAtMaxy2 != null) {
+                    int ID = fitted.get(i).id;
+                    if (LOG.isLoggable(Level.FINE)) {
+                        LOG.fine("" + ID + ", " + xAtMaxy2);
                     }
+                    double x = Math.pow(10.0d, xAtMaxy2);
+                    //pw.println("" + ID + ", " + xAtMaxy2);
+                    pw.println("" + ID + ", " + x);
                 }
             }
-            pw.flush();
-            //}
+            // The plots submit their images to executorService so it is
+            // shut down only once all the plots have run.
+            renderES.shutdown();
+            awaitTermination(renderES);
+            executorService.shutdown();
+            awaitTermination(executorService);
+        } finally {
+            fitES.shutdownNow();
+            renderES.shutdownNow();
+            executorService.shutdownNow();
         }
-        pw.close();
     }
 
-    protected TreeMap<Integer, Object[]> readSwissData(Path fileIn) 
-            throws FileNotFoundException, IOException {
-        TreeMap<Integer, Object[]> result = new TreeMap<>();
-        BufferedReader br = Generic_IO.getBufferedReader(fileIn);
-        StreamTokenizer st = new StreamTokenizer(br);
-        Generic_IO.setStreamTokenizerSyntax5(st);
-        st.wordChars('(', '(');
-        st.wordChars(')', ')');
-        st.wordChars('%', '%');
-        br.readLine();
-        int token;
-        String line = "";
-        String[] fields;
-        try {
-            token = st.nextToken();
-            int ID;
-            //int pointID;
-            while (token != StreamTokenizer.TT_EOF) {
-                switch (token) {
-                    case StreamTokenizer.TT_EOL:
-                        //flowacc,area (km2),slope_25_(%),proglac_ID,COUNT
-                        //12.11111069,0.00756944,32.33880000000,0,250631
-                        fields = line.split(sComma);
-                        ID = Integer.valueOf(fields[3]);
-                        if (ID > 0) {
-                            //BigDecimal flowacc;
-                            BigDecimal area;
-                            BigDecimal slope;
-                            Object[] data;
-                            BigDecimal maxx;
-                            BigDecimal maxy;
-                            BigDecimal minx;
-                            BigDecimal miny;
-                            data = result.get(ID);
-                            ArrayList<Data_BiBigDecimal> theGeneric_XYNumericalData;
-                            if (data == null) {
-                                data = new Object[5];
-                                theGeneric_XYNumericalData = new ArrayList<>();
-                                maxx = BigDecimal.ZERO;
-                                maxy = BigDecimal.ZERO;
-                                minx = BigDecimal.valueOf(Double.MAX_VALUE);
-                                miny = BigDecimal.valueOf(Double.MAX_VALUE);
-                                data[0] = theGeneric_XYNumericalData;
-                                data[1] = maxx;
-                                data[2] = minx;
-                                data[3] = maxy;
-                                data[4] = miny;
-                                result.put(ID, data);
-                            } else {
-                                theGeneric_XYNumericalData = (ArrayList<Data_BiBigDecimal>) data[0];
-                                maxx = (BigDecimal) data[1];
-                                minx = (BigDecimal) data[2];
-                                maxy = (BigDecimal) data[3];
-                                miny = (BigDecimal) data[4];
-                            }
-                            //pointID = Integer.valueOf(fields[4]);
-                            //flowacc = new BigDecimal(fields[0]);
-                            area = new BigDecimal(fields[1]);
-                            if (area.compareTo(BigDecimal.ZERO) == 1) {
-                                area = Math_BigDecimal.log(10, area, 10, RoundingMode.HALF_UP);
-                            } else {
-                                area = BigDecimal.ZERO;
-                            }
-                            slope = new BigDecimal(fields[2]);
-                            if (slope.compareTo(BigDecimal.ZERO) == 1) {
-                                slope = Math_BigDecimal.log(10, slope, 10, RoundingMode.HALF_UP);
-                            } else {
-                                slope = BigDecimal.ZERO;
-                            }
-                            Data_BiBigDecimal point;
-                            point = new Data_BiBigDecimal(slope, area);
-                            theGeneric_XYNumericalData.add(point);
-                            data[0] = theGeneric_XYNumericalData;
-                            data[1] = maxx.max(slope);
-                            data[2] = minx.min(slope);
-                            data[3] = maxy.max(area);
-                            data[4] = miny.min(area);
-                        }
-                        break;
-                    case StreamTokenizer.TT_WORD:
-                        line = st.sval;
-                        break;
+    /**
+     * Fits polynomials of degree 1 to maxDegree to the data of each glacier
+     * that has at least minNumberOfDataPoints points using an
+     * {@link FG_PolynomialSelection}. Glaciers are fitted concurrently by
+     * {@link #nThreads} threads. A line is written to outFile for each
+     * glacier in ID order with the AIC, BIC and MRMSE of each degree and the
+     * degrees with the lowest AIC and BIC. Values that are NaN or infinite,
+     * such as for a degree that cannot be fitted, are left empty.
+     *
+     * @param allData The data.
+     * @param outFile The output file.
+     * @param maxDegree The maximum degree.
+     * @param minNumberOfDataPoints The minimum number of points for a glacier
+     * to be fitted.
+     * @throws IOException If encountered.
+     */
+    public void runModelSelection(FG_GlacierSeriesMap allData, Path outFile,
+            int maxDegree, int minNumberOfDataPoints) throws IOException {
+        ExecutorService es = Executors.newFixedThreadPool(Math.max(1,
+                nThreads));
+        try (FG_CSVWriter w = new FG_CSVWriter(outFile)) {
+            w.add("ID").add("N");
+            for (int d = 1; d <= maxDegree; d++) {
+                w.add("AIC" + d).add("BIC" + d).add("MRMSE" + d);
+            }
+            w.add("Best AIC Degree").add("Best BIC Degree").endLine();
+            List<Future<FG_PolynomialSelection>> results = new ArrayList<>();
+            for (FG_GlacierSeries data : allData.toArray()) {
+                if (data.n >= minNumberOfDataPoints) {
+                    results.add(es.submit(() -> new FG_PolynomialSelection(
+                            data, maxDegree)));
+                }
+            }
+            for (Future<FG_PolynomialSelection> f : results) {
+                FG_PolynomialSelection s = get(f);
+                w.add(s.data.id).add(s.data.n);
+                for (int d = 1; d <= maxDegree; d++) {
+                    addFinite(w, s.getAIC(d));
+                    addFinite(w, s.getBIC(d));
+                    addFinite(w, s.getMRMSE(d));
                 }
-                token = st.nextToken();
+                addDegree(w, s.bestAICDegree);
+                addDegree(w, s.bestBICDegree);
+                w.endLine();
             }
-        } catch (IOException ex) {
-            Logger.getLogger(SlopeAreaAnalysis.class.getName()).log(Level.SEVERE, null, ex);
+        } finally {
+            es.shutdownNow();
         }
-        return result;
     }
 
-    protected TreeMap<Integer, Object[]> readAustriaData(Path fileIn) 
-            throws FileNotFoundException, IOException {
-        TreeMap<Integer, Object[]> r = new TreeMap<>();
-        BufferedReader br = Generic_IO.getBufferedReader(fileIn);
-        StreamTokenizer st = new StreamTokenizer(br);
-        Generic_IO.setStreamTokenizerSyntax5(st);
-        st.wordChars('(', '(');
-        st.wordChars(')', ')');
-        st.wordChars('%', '%');
-        br.readLine();
-        int token;
-        String line = "";
-        String[] fields;
+    /**
+     * Adds v to w as the next field, or an empty field if v is NaN or
+     * infinite.
+     *
+     * @param w The writer.
+     * @param v The value.
+     */
+    private static void addFinite(FG_CSVWriter w, double v) {
+        if (Double.isFinite(v)) {
+            w.add(v);
+        } else {
+            w.field();
+        }
+    }
+
+    /**
+     * Adds degree to w as the next field, or an empty field if degree is 0
+     * as no degree was selected.
+     *
+     * @param w The writer.
+     * @param degree The degree.
+     */
+    private static void addDegree(FG_CSVWriter w, int degree) {
+        if (degree > 0) {
+            w.add(degree);
+        } else {
+            w.field();
+        }
+    }
+
+    /**
+     * Waits for and returns the result of f.
+     *
+     * @param f The Future.
+     * @return The result of f.
+     * @throws IOException If thrown by the task or if interrupted.
+     */
+    private <T> T get(Future<T> f) throws IOException {
         try {
-            token = st.nextToken();
-            int ID;
-            //int pointID;
-            while (token != StreamTokenizer.TT_EOF) {
-                switch (token) {
-                    case StreamTokenizer.TT_EOL:
-                        //flowacc,area (km2),slope_25_(%),proglac_ID,COUNT
-                        //12.11111069,0.00756944,32.33880000000,0,250631
-                        fields = line.split(sComma);
-                        ID = Double.valueOf(fields[1]).intValue();
-                        if (ID > 0) {
-                            //BigDecimal flowacc;
-                            BigDecimal area;
-                            BigDecimal slope;
-                            Object[] data;
-                            BigDecimal maxx;
-                            BigDecimal maxy;
-                            BigDecimal minx;
-                            BigDecimal miny;
-                            data = r.get(ID);
-                            ArrayList<Data_BiBigDecimal> theGeneric_XYNumericalData;
-                            if (data == null) {
-                                data = new Object[5];
-                                theGeneric_XYNumericalData = new ArrayList<>();
-                                maxx = BigDecimal.ZERO;
-                                maxy = BigDecimal.ZERO;
-                                minx = BigDecimal.valueOf(Double.MAX_VALUE);
-                                miny = BigDecimal.valueOf(Double.MAX_VALUE);
-                                data[0] = theGeneric_XYNumericalData;
-                                data[1] = maxx;
-                                data[2] = minx;
-                                data[3] = maxy;
-                                data[4] = miny;
-                                r.put(ID, data);
-                            } else {
-                                theGeneric_XYNumericalData = (ArrayList<Data_BiBigDecimal>) data[0];
-                                maxx = (BigDecimal) data[1];
-                                minx = (BigDecimal) data[2];
-                                maxy = (BigDecimal) data[3];
-                                miny = (BigDecimal) data[4];
-                            }
-                            //pointID = Integer.valueOf(fields[4]);
-                            //flowacc = new BigDecimal(fields[0]);
-                            area = new BigDecimal(fields[3]);
-                            if (area.compareTo(BigDecimal.ZERO) == 1) {
-                                area = Math_BigDecimal.log(10, area, 10, RoundingMode.HALF_UP);
-                            } else {
-                                area = BigDecimal.ZERO;
-                            }
-                            slope = new BigDecimal(fields[2]);
-                            if (slope.compareTo(BigDecimal.ZERO) == 1) {
-                                slope = Math_BigDecimal.log(10, slope, 10, RoundingMode.HALF_UP);
-                            } else {
-                                slope = BigDecimal.ZERO;
-                            }
-                            Data_BiBigDecimal point;
-                            point = new Data_BiBigDecimal(slope, area);
-                            theGeneric_XYNumericalData.add(point);
-                            data[0] = theGeneric_XYNumericalData;
-                            data[1] = maxx.max(slope);
-                            data[2] = minx.min(slope);
-                            data[3] = maxy.max(area);
-                            data[4] = miny.min(area);
-                        }
-                        break;
-                    case StreamTokenizer.TT_WORD:
-                        line = st.sval;
-                        break;
-                }
-                token = st.nextToken();
+            return f.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException(e.getMessage());
+        } catch (ExecutionException e) {
+            Throwable c = e.getCause();
+            if (c instanceof IOException) {
+                throw (IOException) c;
+            } else if (c instanceof RuntimeException) {
+                throw (RuntimeException) c;
+            } else if (c instanceof Error) {
+                throw (Error) c;
             }
-        } catch (IOException ex) {
-            Logger.getLogger(SlopeAreaAnalysis.class.getName()).log(Level.SEVERE, null, ex);
+            throw new IOException(c);
+        }
+    }
+
+    /**
+     * Waits for es which must have been shut down to finish its tasks.
+     *
+     * @param es The ExecutorService.
+     * @throws IOException If interrupted.
+     */
+    private void awaitTermination(ExecutorService es) throws IOException {
+        try {
+            es.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException(e.getMessage());
         }
-        return r;
     }
 
-    public void PrintDataSummary(TreeMap<Integer, Object[]> allData) {
-        Iterator<Integer> ite;
-        ite = allData.keySet().iterator();
-        int ID;
-        Object[] data;
-        ArrayList<Data_BiBigDecimal> theGeneric_XYNumericalData;
-        Data_BiBigDecimal point;
-        BigDecimal maxx;
-        BigDecimal minx;
-        BigDecimal maxy;
-        BigDecimal miny;
-        System.out.println("N, MaxX, MinX, MaxY, MinY");
-        while (ite.hasNext()) {
-            ID = ite.next();
-            data = allData.get(ID);
-            theGeneric_XYNumericalData = (ArrayList<Data_BiBigDecimal>) data[0];
-            maxx = (BigDecimal) data[1];
-            minx = (BigDecimal) data[2];
-            maxy = (BigDecimal) data[3];
-            miny = (BigDecimal) data[4];
-            System.out.println("" + theGeneric_XYNumericalData.size()
-                    + ", " + maxx
-                    + ", " + minx
-                    + ", " + maxy
-                    + ", " + miny);
+    /**
+     * Reads Swiss slope area data in which each line has a flow accumulation,
+     * an area, a slope, a glacier ID and a count.
+     *
+     * @param fileIn The file to read.
+     * @return The data for each glacier keyed by ID.
+     * @throws FileNotFoundException If fileIn does not exist.
+     * @throws IOException If encountered.
+     */
+    protected FG_GlacierSeriesMap readSwissData(Path fileIn)
+            throws FileNotFoundException, IOException {
+        //flowacc,area (km2),slope_25_(%),proglac_ID,COUNT
+        //12.11111069,0.00756944,32.33880000000,0,250631
+        return FG_SlopeAreaReader.read(fileIn, 3, 2, 1, getMaxDegree());
+    }
+
+    /**
+     * Reads Austrian slope area data in which each line has the glacier ID in
+     * field 1, the slope in field 2 and the area in field 3.
+     *
+     * @param fileIn The file to read.
+     * @return The data for each glacier keyed by ID.
+     * @throws FileNotFoundException If fileIn does not exist.
+     * @throws IOException If encountered.
+     */
+    protected FG_GlacierSeriesMap readAustriaData(Path fileIn)
+            throws FileNotFoundException, IOException {
+        return FG_SlopeAreaReader.read(fileIn, 1, 2, 3, getMaxDegree());
+    }
+
+    /**
+     * @return The maximum degree of polynomial that needs to be fitted from
+     * the sums accumulated as data are read.
+     */
+    private int getMaxDegree() {
+        return Math.max(FG_GlacierSeries.DEFAULT_MAX_DEGREE,
+                selectionMaxDegree);
+    }
+
+    /**
+     * Logs the number of points and the extent of each series at
+     * {@link Level#FINE}.
+     *
+     * @param allData The data.
+     */
+    public void PrintDataSummary(FG_GlacierSeriesMap allData) {
+        if (!LOG.isLoggable(Level.FINE)) {
+            return;
+        }
+        LOG.fine("N, MaxX, MinX, MaxY, MinY");
+        for (FG_GlacierSeries data : allData.toArray()) {
+            LOG.fine("" + data.n
+                    + ", " + data.maxX
+                    + ", " + data.minX
+                    + ", " + data.maxY
+                    + ", " + data.minY);
         }
     }
-}
+}
\ No newline at end of file
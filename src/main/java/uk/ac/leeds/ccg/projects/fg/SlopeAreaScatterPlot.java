@@ -24,13 +24,15 @@ import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.concurrent.ExecutorService;
-import org.apache.commons.math3.analysis.polynomials.PolynomialFunction;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 import uk.ac.leeds.ccg.chart.data.Data_BiBigDecimal;
 import uk.ac.leeds.ccg.chart.examples.Chart_Scatter;
-import org.apache.commons.math3.fitting.PolynomialCurveFitter;
-import org.apache.commons.math3.fitting.WeightedObservedPoints;
 import uk.ac.leeds.ccg.generic.core.Generic_Environment;
 import uk.ac.leeds.ccg.math.Math_BigDecimal;
+import uk.ac.leeds.ccg.projects.fg.core.FG_Log;
+import uk.ac.leeds.ccg.projects.fg.io.FG_GlacierSeries;
+import uk.ac.leeds.ccg.projects.fg.stats.FG_SlopeAreaFit;
 //import org.apache.commons.math3.fitting.PolynomialCurveFitter
 
 /**
@@ -39,6 +41,9 @@ import uk.ac.leeds.ccg.math.Math_BigDecimal;
  */
 public class SlopeAreaScatterPlot extends Chart_Scatter {
 
+    private static final Logger LOG = FG_Log.getLogger(
+            SlopeAreaScatterPlot.class);
+
     boolean isHump;
     public double maxy;
     public double xAtMaxy;
@@ -53,7 +58,42 @@ public class SlopeAreaScatterPlot extends Chart_Scatter {
 
     public SlopeAreaScatterPlot(Generic_Environment e,
             int degree,
-            Object[] data,
+            FG_GlacierSeries data,
+            ExecutorService executorService,
+            Path file,
+            String format,
+            String title,
+            int dataWidth,
+            int dataHeight,
+            String xAxisLabel,
+            String yAxisLabel,
+            boolean drawOriginLinesOnPlot,
+            int decimalPlacePrecisionForCalculations,
+            int decimalPlacePrecisionForDisplay,
+            RoundingMode rm) {
+        this(e,
+                new FG_SlopeAreaFit(data, degree,
+                        decimalPlacePrecisionForDisplay, rm),
+                executorService,
+                file,
+                format,
+                title,
+                dataWidth,
+                dataHeight,
+                xAxisLabel,
+                yAxisLabel,
+                drawOriginLinesOnPlot,
+                decimalPlacePrecisionForCalculations,
+                decimalPlacePrecisionForDisplay,
+                rm);
+    }
+
+    /**
+     * Creates a plot of the data and the fitted curve of fit which has
+     * already been calculated.
+     */
+    public SlopeAreaScatterPlot(Generic_Environment e,
+            FG_SlopeAreaFit fit,
             ExecutorService executorService,
             Path file,
             String format,
@@ -81,34 +121,18 @@ public class SlopeAreaScatterPlot extends Chart_Scatter {
                 decimalPlacePrecisionForDisplay,
                 rm);
         setStartAgeOfEndYearInterval(0);
-        setData(data);
-        PolynomialCurveFitter pcf;
-        pcf = PolynomialCurveFitter.create(degree);
-        final WeightedObservedPoints obs = new WeightedObservedPoints();
-        ArrayList<Data_BiBigDecimal> theData_BiBigDecimal;
-        theData_BiBigDecimal = (ArrayList<Data_BiBigDecimal>) data[0];
-        Iterator<Data_BiBigDecimal> ite;
-        ite = theData_BiBigDecimal.iterator();
+        FG_GlacierSeries data = fit.data;
+        setData(data.toData());
         Data_BiBigDecimal generic_XYNumericalData;
-        while (ite.hasNext()) {
-            generic_XYNumericalData = ite.next();
-            obs.add(generic_XYNumericalData.x.doubleValue(),
-                    generic_XYNumericalData.y.doubleValue());
-        }
-        double[] coeffs = pcf.fit(obs.toList());
+        double[] coeffs = fit.coefficients;
         title += ", y = ";
         BigDecimal coeffBD;
         String coeffS;
-
-        double a = 0.0d;
-        double b = 0.0d;
-        double c = 0.0d;
         for (int i = coeffs.length - 1; i > -1; i--) {
-            System.out.println(coeffs[i]);
-            coeffBD = Math_BigDecimal.roundToAndSetDecimalPlaces(
-                    BigDecimal.valueOf(coeffs[i]),
-                    decimalPlacePrecisionForDisplay,
-                    rm);
+            if (LOG.isLoggable(Level.FINER)) {
+                LOG.finer("coefficient " + i + " " + coeffs[i]);
+            }
+            coeffBD = fit.roundedCoefficients[i];
             coeffS = coeffBD.toPlainString();
             String s;
             s = getCoeff(coeffBD, coeffS);
@@ -116,45 +140,42 @@ public class SlopeAreaScatterPlot extends Chart_Scatter {
                 if (!s.isEmpty()) {
                     title += "(" + s + "*x^" + i + ")+";
                 }
-
-                if (i == 2) {
-                    a = Double.valueOf(s);
-                }
-
             } else if (i == 1) {
                 if (!s.isEmpty()) {
                     title += "(" + s + "*x)";
-                    b = Double.valueOf(s);
-                } else {
-                    b = 0.0d;
                 }
             } else if (!s.isEmpty()) {
                 title += s;
-                c = Double.valueOf(s);
-            } else {
-                c = 0.0d;
             }
             //title += "" + coeffs[i] + ",";
         }
         //title = title.substring(0, (title.length() - 3));
         //title += ")";
 
-        PolynomialFunction pf;
-        pf = new PolynomialFunction(coeffs);
-        double minx = minX.doubleValue();
-        double maxx = maxX.doubleValue();
+        double minx = data.minX;
+        double maxx = data.maxX;
         double range = maxx - minx;
         int intervals = 100;
         double interval = range / (double) intervals;
+        // There is no best fit line if the polynomial could not be fitted.
+        int nBestfit = fit.isFitted ? intervals : 0;
+        double[] xs = new double[nBestfit];
+        for (int i = 0; i < nBestfit; i++) {
+            xs[i] = minx + interval * i;
+        }
+        double[] ys = new double[nBestfit];
+        if (fit.isFitted) {
+            fit.getPolynomial().evaluate(xs, ys);
+        }
 
         maxy = Double.NEGATIVE_INFINITY;
 
         double x;
         double y;
-        bestfit = new ArrayList<Data_BiBigDecimal>();
-        for (int i = 0; i < 100; i++) {
-            x = minx + interval * i;
-            y = pf.value(x);
+        bestfit = new ArrayList<Data_BiBigDecimal>(nBestfit);
+        for (int i = 0; i < nBestfit; i++) {
+            x = xs[i];
+            y = ys[i];
             if (y > maxy) {
                 maxy = y;
                 xAtMaxy = x;
@@ -165,30 +186,15 @@ public class SlopeAreaScatterPlot extends Chart_Scatter {
             bestfit.add(generic_XYNumericalData);
         }
 
-        maxy2 = Double.NEGATIVE_INFINITY;
-        if (a < 0) {
-            maxy2 = c - ((b * b) / (4.0d * a));
-            xAtMaxy2 = (-1.0d * b) / (2.0d * a);
-            isHump = true;
-        } else {
-            isHump = false;
-        }
-
-        double SRMSE = 0.0d;
-        double deltay;
-        ite = theData_BiBigDecimal.iterator();
-        while (ite.hasNext()) {
-            generic_XYNumericalData = ite.next();
-            x = generic_XYNumericalData.x.doubleValue();
-            y = generic_XYNumericalData.y.doubleValue();
-            deltay = Math.sqrt(Math.pow(y - pf.value(x), 2));
-            SRMSE += deltay;
+        maxy2 = fit.maxy2;
+        xAtMaxy2 = fit.xAtMaxy2;
+        isHump = fit.isHump;
+        if (fit.isFitted) {
+            title += ", MRMSE = " + (Math_BigDecimal.roundToAndSetDecimalPlaces(
+                    BigDecimal.valueOf(fit.MRMSE),
+                    decimalPlacePrecisionForDisplay,
+                    rm)).toPlainString();
         }
-        double MRMSE = SRMSE / (double) theData_BiBigDecimal.size();
-        title += ", MRMSE = " + (Math_BigDecimal.roundToAndSetDecimalPlaces(
-                BigDecimal.valueOf(MRMSE),
-                decimalPlacePrecisionForDisplay,
-                rm)).toPlainString();
         //setTitle(title);
     }
 
@@ -17,20 +17,36 @@ package uk.ac.leeds.ccg.projects.fg;
 
 import java.io.File;
 import java.io.IOException;
-import java.io.PrintWriter;
+import java.io.UncheckedIOException;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
+import java.nio.DoubleBuffer;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayDeque;
 import java.util.HashSet;
 import java.util.Iterator;
-import java.util.TreeMap;
+import java.util.Locale;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.IntStream;
 import uk.ac.leeds.ccg.generic.core.Generic_Environment;
 import uk.ac.leeds.ccg.generic.io.Generic_Defaults;
-import uk.ac.leeds.ccg.generic.io.Generic_IO;
 import uk.ac.leeds.ccg.generic.io.Generic_Path;
-import uk.ac.leeds.ccg.math.Math_BigDecimal;
+import uk.ac.leeds.ccg.grids.d2.Grids_2D_ID_int;
+import uk.ac.leeds.ccg.grids.d2.Grids_Dimensions;
+import uk.ac.leeds.ccg.grids.d2.chunk.d.Grids_ChunkDouble;
 import uk.ac.leeds.ccg.grids.d2.stats.Grids_StatsNumber;
 import uk.ac.leeds.ccg.grids.d2.grid.d.Grids_GridDouble;
 import uk.ac.leeds.ccg.grids.core.Grids_Environment;
@@ -38,6 +54,18 @@ import uk.ac.leeds.ccg.grids.d2.stats.Grids_StatsNotUpdatedDouble;
 import uk.ac.leeds.ccg.grids.io.Grids_ESRIAsciiGridExporter;
 import uk.ac.leeds.ccg.grids.io.Grids_ESRIAsciiGridImporter;
 import uk.ac.leeds.ccg.grids.process.Grids_ProcessorDEM;
+import uk.ac.leeds.ccg.projects.fg.core.FG_Log;
+import uk.ac.leeds.ccg.projects.fg.io.FG_CSVWriter;
+import uk.ac.leeds.ccg.projects.fg.io.FG_GridCache;
+import uk.ac.leeds.ccg.projects.fg.io.FG_TimeSeriesFiles;
+import uk.ac.leeds.ccg.projects.fg.stats.FG_CellTimeSeriesStats;
+import uk.ac.leeds.ccg.projects.fg.stats.FG_DoubleHistogram;
+import uk.ac.leeds.ccg.projects.fg.stats.FG_Intervals;
+import uk.ac.leeds.ccg.projects.fg.stats.FG_LongHistogram;
+import uk.ac.leeds.ccg.projects.fg.stats.FG_Moments;
+import uk.ac.leeds.ccg.projects.fg.stats.FG_QuantileSketch;
+import uk.ac.leeds.ccg.projects.fg.stats.FG_Quantiles;
+import uk.ac.leeds.ccg.projects.fg.stats.FG_StatsEngine;
 
 /**
  * A class developed for processing stream temperature data.
@@ -46,12 +74,83 @@ public class TemperatureGridDataProcessing extends Grids_ProcessorDEM {
 
     private static final long serialVersionUID = 1L;
 
+    private static final Logger LOG = FG_Log.getLogger(
+            TemperatureGridDataProcessing.class);
+
+    /**
+     * The format of the hourly input grid file names, e.g. "26t0900.txt".
+     */
+    public static final DateTimeFormatter FILENAME_FORMAT
+            = DateTimeFormatter.ofPattern("d't'HHmm'.txt'", Locale.ROOT);
+
+    /**
+     * The format of the labels of output lines, e.g. "26t0900".
+     */
+    public static final DateTimeFormatter LABEL_FORMAT
+            = DateTimeFormatter.ofPattern("d't'HHmm", Locale.ROOT);
+
+    /**
+     * The year of the July and August data. This is not part of the input
+     * file names so only needs to be a year in which the dates are valid.
+     */
+    private static final int YEAR = 2000;
+
     Grids_ESRIAsciiGridImporter ESRIAsciiGridImporter;
     boolean HandleOutOfMemoryError;
     String FileSeparator;
     String[] ImageTypes;
     Grids_ESRIAsciiGridExporter ESRIAsciiGridExporter;
 
+    /**
+     * Whether output lines are echoed to System.out.
+     */
+    protected boolean echo;
+
+    /**
+     * The numeric engine used to calculate the mean and moments.
+     */
+    protected FG_StatsEngine engine = FG_StatsEngine.DOUBLE;
+
+    /**
+     * The number of threads used to process hourly grids.
+     */
+    protected int nThreads = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * The maximum number of grids that are loaded at any time.
+     */
+    protected int maxLiveGrids = nThreads;
+
+    /**
+     * Whether the chunks of each grid are swept in parallel. By default this
+     * is only so if {@link #nThreads} is 1, as otherwise grids are already
+     * processed in parallel and sweeping each in parallel as well would
+     * oversubscribe the processors.
+     */
+    protected boolean parallelSweep = nThreads <= 1;
+
+    /**
+     * Extra quantiles calculated for each grid and output after the other
+     * statistics, e.g. {0.05, 0.95} for the 5th and 95th percentiles.
+     */
+    protected double[] percentiles = new double[0];
+
+    /**
+     * The relative error of the approximate statistics, or 0 for exact
+     * statistics.
+     */
+    protected double relativeError = 0.0d;
+
+    /**
+     * Whether grids are read from and cached in {@link FG_GridCache}s.
+     */
+    protected boolean gridCache = true;
+
+    /**
+     * The number of cells in each band of rows swept from a grid cache.
+     */
+    private static final long BAND_SIZE = 1L << 20;
+
 //    protected TemperatureGridDataProcessing() {
 //    }
     public TemperatureGridDataProcessing(Grids_Environment ge)
@@ -96,14 +195,100 @@ public class TemperatureGridDataProcessing extends Grids_ProcessorDEM {
 
     }
 
+    /**
+     * @param echo If true output lines are also written to System.out.
+     */
+    public void setEcho(boolean echo) {
+        this.echo = echo;
+    }
+
+    /**
+     * @param engine The numeric engine used to calculate the mean and
+     * moments. {@link FG_StatsEngine#DOUBLE} is the default and
+     * {@link FG_StatsEngine#BIG_DECIMAL} is a slower reference.
+     */
+    public void setEngine(FG_StatsEngine engine) {
+        this.engine = engine;
+    }
+
+    /**
+     * @param nThreads The number of threads used to process hourly grids.
+     * @param maxLiveGrids The maximum number of grids that are loaded at any
+     * time. This caps the memory used. If it is less than nThreads some
+     * threads will wait for others to finish with their grids. This also
+     * resets {@link #parallelSweep} to its default for nThreads.
+     */
+    public void setConcurrency(int nThreads, int maxLiveGrids) {
+        this.nThreads = nThreads;
+        this.maxLiveGrids = maxLiveGrids;
+        this.parallelSweep = nThreads <= 1;
+    }
+
+    /**
+     * @param parallelSweep If true the chunks of each grid are swept in
+     * parallel using the common ForkJoinPool. Call this after
+     * {@link #setConcurrency(int, int)} to override the default.
+     */
+    public void setParallelSweep(boolean parallelSweep) {
+        this.parallelSweep = parallelSweep;
+    }
+
+    /**
+     * @param percentiles Extra quantiles to calculate for each grid and
+     * output after the other statistics, e.g. 0.05 and 0.95 for the 5th and
+     * 95th percentiles. Each must be in the range [0, 1].
+     */
+    public void setPercentiles(double... percentiles) {
+        for (double p : percentiles) {
+            if (!(p >= 0.0d && p <= 1.0d)) {
+                throw new IllegalArgumentException("Percentile " + p
+                        + " is not in the range [0, 1]");
+            }
+        }
+        this.percentiles = percentiles.clone();
+    }
+
+    /**
+     * Sets whether statistics of the values other than 0 and 1 are exact or
+     * approximate. Exact statistics need a count of every distinct value,
+     * which for large grids of continuous values can be nearly as large as
+     * the grid. Approximate statistics are calculated from a
+     * {@link FG_QuantileSketch} instead, which needs a fixed amount of memory
+     * however large the grid. Quantiles, including the median and quartiles,
+     * are then within relativeError of the exact values. The mean, moments,
+     * mode and interval statistics are calculated from the values
+     * representing each bucket of the sketch, and the number of different
+     * values is the number of buckets.
+     *
+     * @param relativeError The relative error of the approximate statistics
+     * which must be less than 1, or 0 for exact statistics.
+     */
+    public void setApproximate(double relativeError) {
+        if (!(relativeError >= 0.0d && relativeError < 1.0d)) {
+            throw new IllegalArgumentException("Relative error "
+                    + relativeError + " is not in the range [0, 1)");
+        }
+        this.relativeError = relativeError;
+    }
+
+    /**
+     * @param gridCache If true the first time an input grid is processed a
+     * binary cache of it is written alongside it and this is read instead of
+     * the input on subsequent runs until the input changes.
+     */
+    public void setGridCache(boolean gridCache) {
+        this.gridCache = gridCache;
+    }
+
     public void run() throws Exception {
         //runTest(intervalRange, startIntervalBound);
         // Choose interval and start
-        double intervalRange = 0.25d;//0.125d; // 0.25
-        double startIntervalBound = 0.0d;
+        // Several can be given, e.g. 0.125, 0.25 and 0.5, and each grid is
+        // still read only once.
+        FG_Intervals[] intervals = {new FG_Intervals(0.25d, 0.0d)};
 
-        runJuly(intervalRange, startIntervalBound);
-        runAugust(intervalRange, startIntervalBound);
+        runJuly(intervals);
+        runAugust(intervals);
     }
 
     public void runTest(double intervalRange, double startIntervalBound)
@@ -121,140 +306,353 @@ public class TemperatureGridDataProcessing extends Grids_ProcessorDEM {
     }
 
     public void runJuly(double intervalRange, double startIntervalBound) throws IOException, Exception {
-        String month = "July";
+        runJuly(new FG_Intervals(intervalRange, startIntervalBound));
+    }
+
+    public void runJuly(FG_Intervals... intervals) throws Exception {
+        run("July", LocalDateTime.of(YEAR, 7, 26, 0, 0),
+                LocalDateTime.of(YEAR, 7, 31, 0, 0), intervals);
+    }
+
+    public void runAugust(double intervalRange, double startIntervalBound)
+            throws IOException, Exception {
+        runAugust(new FG_Intervals(intervalRange, startIntervalBound));
+    }
+
+    public void runAugust(FG_Intervals... intervals) throws Exception {
+        run("August", LocalDateTime.of(YEAR, 8, 24, 0, 0),
+                LocalDateTime.of(YEAR, 8, 30, 0, 0), intervals);
+    }
+
+    /**
+     * Calculates statistics for each hour from start to end inclusive using
+     * the hourly grids in the input directory for month and writes these out
+     * to a file in the output directory for month and each of intervals.
+     *
+     * @param month The month.
+     * @param start The first hour.
+     * @param end The last hour.
+     * @param intervals The intervals.
+     * @throws Exception If encountered.
+     */
+    protected void run(String month, LocalDateTime start, LocalDateTime end,
+            FG_Intervals[] intervals) throws Exception {
         Path indir = Paths.get(env.files.getInputDir().toAbsolutePath() + month);
-        Path outdir = getOutputFile(intervalRange, startIntervalBound, month);
-        Files.createDirectories(outdir);
-        try (PrintWriter outputPW = Generic_IO.getPrintWriter(Paths.get(outdir.toString(), month + ".csv"), false)) {
-            int expectedNumberOfFiles = (5 * 24 + 1);
-            System.out.println("expectedNumberOfFiles " + expectedNumberOfFiles);
-            System.out.println("inputDirectory.listFiles().length "
-                    + Files.list(indir).count());
-            Object[] result = new Object[expectedNumberOfFiles];
-            Path inputFile;
-            String filename;
-            int resultIndex = 0;
-            
-            // Get statistics for hours in July files
-            for (int day = 26; day < 31; day++) {
-                for (int hour = 0; hour < 24; hour++) {
-                    filename = "" + day + "t";
-                    if (hour < 10) {
-                        filename += "0";
+        Path[] outfiles = new Path[intervals.length];
+        for (int i = 0; i < intervals.length; i++) {
+            Path outdir = getOutputFile(intervals[i].range,
+                    intervals[i].startBound, month);
+            Files.createDirectories(outdir);
+            outfiles[i] = Paths.get(outdir.toString(), month + ".csv");
+        }
+        run(new FG_TimeSeriesFiles(indir, FILENAME_FORMAT, start, end,
+                Duration.ofHours(1)), outfiles, intervals);
+    }
+
+    /**
+     * Calculates statistics for each grid in inputs and writes a line for
+     * each to outfile in time order. The lines are labelled using
+     * {@link #LABEL_FORMAT}.
+     *
+     * @param inputs The input grids.
+     * @param outfile The output file.
+     * @param intervalRange The interval range.
+     * @param startIntervalBound The start interval bound.
+     * @throws Exception If encountered.
+     */
+    public void run(FG_TimeSeriesFiles inputs, Path outfile,
+            double intervalRange, double startIntervalBound) throws Exception {
+        run(inputs, new Path[]{outfile}, new FG_Intervals[]{
+            new FG_Intervals(intervalRange, startIntervalBound)});
+    }
+
+    /**
+     * Calculates statistics for each grid in inputs and for each of
+     * intervals writes a line for each grid to the corresponding outfile in
+     * time order. Each grid is read once whatever the number of intervals.
+     *
+     * @param inputs The input grids.
+     * @param outfiles The output files, one for each of intervals.
+     * @param intervals The intervals.
+     * @throws Exception If encountered.
+     */
+    public void run(FG_TimeSeriesFiles inputs, Path[] outfiles,
+            FG_Intervals[] intervals) throws Exception {
+        LOG.info("expectedNumberOfFiles " + inputs.getNumberOfTimes());
+        FG_CSVWriter[] outputs = new FG_CSVWriter[intervals.length];
+        try {
+            for (int i = 0; i < intervals.length; i++) {
+                outputs[i] = new FG_CSVWriter(outfiles[i], echo);
+                outputs[i].writeLine(getOutputHeader());
+            }
+            process(inputs, intervals, outputs);
+        } finally {
+            close(outputs);
+        }
+    }
+
+    /**
+     * Closes all of outputs that are not null.
+     *
+     * @param outputs The outputs to close.
+     * @throws IOException If encountered closing any of outputs. Any others
+     * are added as suppressed exceptions.
+     */
+    private void close(FG_CSVWriter[] outputs) throws IOException {
+        IOException ex = null;
+        for (FG_CSVWriter output : outputs) {
+            if (output != null) {
+                try {
+                    output.close();
+                } catch (IOException e) {
+                    if (ex == null) {
+                        ex = e;
+                    } else {
+                        ex.addSuppressed(e);
                     }
-                    filename += "" + hour + "00.txt";
-                    inputFile = Paths.get(indir.toString(), filename);
-                    result[resultIndex] = getStatistics(inputFile, intervalRange,
-                            startIntervalBound, outdir);
-                    resultIndex++;
                 }
             }
-            inputFile = Paths.get(indir.toString(), "31t0000.txt");
-            result[resultIndex] = getStatistics(inputFile, intervalRange,
-                    startIntervalBound, outdir);
-            
-            // Dominance
-            //double[] dominance = getDominance(result);
-            // Write results
-            String line = getOutputHeader();
-            outputPW.println(line);
-            System.out.println(line);
-            resultIndex = 0;
-            Object[] resultPart;
-            for (int day = 26; day < 31; day++) {
-                for (int hour = 0; hour < 24; hour++) {
-                    line = "" + day + "t";
-                    if (hour < 10) {
-                        line += "0";
-                    }
-                    line += "" + hour + "00";
-                    resultPart = (Object[]) result[resultIndex];
-                    for (int i = 0; i < resultPart.length; i++) {
-                        line += "," + resultPart[i];
-                    }
-                    //line += "," + dominance[resultIndex];
-                    outputPW.println(line);
-                    System.out.println(line);
-                    resultIndex++;
+        }
+        if (ex != null) {
+            throw ex;
+        }
+    }
+
+    /**
+     * Calculates statistics for each grid in inputs and for each of
+     * intervals writes a line for each grid to the corresponding output in
+     * time order. Grids are processed concurrently by
+     * {@link #nThreads} threads and at most {@link #maxLiveGrids} grids are
+     * loaded at any time. Up to 2 * {@link #nThreads} grids are submitted
+     * ahead of the one being written, so the next grids are read while
+     * earlier ones are analysed, and each line is written as soon as it and
+     * all the lines before it are calculated. Only the results for these
+     * grids are held, so any number of grids can be processed.
+     *
+     * @param inputs The input grids.
+     * @param intervals The intervals.
+     * @param outputs The outputs, one for each of intervals.
+     * @throws Exception If encountered.
+     */
+    protected void process(FG_TimeSeriesFiles inputs, FG_Intervals[] intervals,
+            FG_CSVWriter[] outputs) throws Exception {
+        int threads = Math.max(1, nThreads);
+        int window = 2 * threads;
+        ExecutorService es = Executors.newFixedThreadPool(threads);
+        Semaphore liveGrids = new Semaphore(Math.max(1, maxLiveGrids));
+        Iterator<LocalDateTime> ite = inputs.iterator();
+        ArrayDeque<LocalDateTime> times = new ArrayDeque<>();
+        ArrayDeque<Future<Object[][]>> results = new ArrayDeque<>();
+        try {
+            while (true) {
+                while (results.size() < window && ite.hasNext()) {
+                    LocalDateTime t = ite.next();
+                    Path inputFile = inputs.getPath(t);
+                    times.add(t);
+                    results.add(es.submit(() -> {
+                        liveGrids.acquire();
+                        try {
+                            return getStatistics(inputFile, intervals);
+                        } finally {
+                            liveGrids.release();
+                        }
+                    }));
+                }
+                if (results.isEmpty()) {
+                    break;
+                }
+                String label = LABEL_FORMAT.format(times.poll());
+                Object[][] result = get(results.poll());
+                for (int i = 0; i < outputs.length; i++) {
+                    writeResult(outputs[i], label, result[i]);
                 }
             }
-            line = "31t0000";
-            resultPart = (Object[]) result[resultIndex];
-            for (int i = 0; i < resultPart.length; i++) {
-                line += "," + resultPart[i];
+        } finally {
+            es.shutdownNow();
+        }
+    }
+
+    /**
+     * Waits for and returns the result of f.
+     *
+     * @param f The Future.
+     * @return The result of f.
+     * @throws Exception If thrown by the task or if interrupted.
+     */
+    private <T> T get(Future<T> f) throws Exception {
+        try {
+            return f.get();
+        } catch (ExecutionException e) {
+            Throwable c = e.getCause();
+            if (c instanceof Exception) {
+                throw (Exception) c;
+            } else if (c instanceof Error) {
+                throw (Error) c;
             }
-            //line += "," + dominance[resultIndex];
-            outputPW.println(line);
+            throw e;
         }
     }
 
-    public void runAugust(double intervalRange, double startIntervalBound)
-            throws IOException, Exception {
-        String month = "August";
-        Path indir = Paths.get(env.files.getInputDir().toAbsolutePath() + month);
-        Path outdir = getOutputFile(intervalRange, startIntervalBound, month);
+    /**
+     * Calculates statistics for each cell over all the grids in inputs and
+     * writes each statistic out as an ESRI ASCII grid named after it in
+     * outdir. Grids are read one at a time in time order, with the next grid
+     * being read while the current one is added, so at most two are held in
+     * memory. As in {@link #getStatistics(Path, FG_Intervals[])}, values of 0
+     * and 1 are ignored.
+     *
+     * @param inputs The input grids. These must all have the same dimensions.
+     * @param outdir The output directory.
+     * @param threshold The value that values are counted as above for
+     * {@link FG_CellTimeSeriesStats.Statistic#HOURS_ABOVE}.
+     * @return The statistics.
+     * @throws Exception If encountered.
+     */
+    public FG_CellTimeSeriesStats runCellStatistics(FG_TimeSeriesFiles inputs,
+            Path outdir, double threshold) throws Exception {
         Files.createDirectories(outdir);
-        PrintWriter outputPW = Generic_IO.getPrintWriter(Paths.get(outdir.toString(), month + ".csv"), false);
-        int expectedNumberOfFiles = (6 * 24 + 1);
-        System.out.println("expectedNumberOfFiles " + expectedNumberOfFiles);
-        System.out.println("inputDirectory.listFiles().length "
-                + Files.list(indir).count());
-        Object[] statisticsPerHour = new Object[expectedNumberOfFiles];
-        Path inputFile;
-        String filename;
-        int resultIndex = 0;
-
-        // Get statistics for hours in July August
-        for (int day = 24; day < 30; day++) {
-            for (int hour = 0; hour < 24; hour++) {
-                filename = "" + day + "t";
-                if (hour < 10) {
-                    filename += "0";
+        FG_CellTimeSeriesStats cells = null;
+        Grids_Dimensions dimensions = null;
+        ExecutorService es = Executors.newSingleThreadExecutor();
+        try {
+            Iterator<LocalDateTime> ite = inputs.iterator();
+            LocalDateTime next = ite.hasNext() ? ite.next() : null;
+            Future<Grids_GridDouble> f = next == null ? null
+                    : es.submit(getLoader(inputs.getPath(next)));
+            while (f != null) {
+                LocalDateTime t = next;
+                Path inputFile = inputs.getPath(t);
+                Grids_GridDouble g = get(f);
+                next = ite.hasNext() ? ite.next() : null;
+                f = next == null ? null
+                        : es.submit(getLoader(inputs.getPath(next)));
+                LOG.info(() -> "File " + inputFile);
+                if (cells == null) {
+                    cells = new FG_CellTimeSeriesStats(
+                            Math.toIntExact(g.getNRows()),
+                            Math.toIntExact(g.getNCols()), threshold);
+                    dimensions = g.getDimensions();
+                } else if (g.getNRows() != cells.nRows
+                        || g.getNCols() != cells.nCols) {
+                    throw new IOException(inputFile + " has " + g.getNRows()
+                            + " rows and " + g.getNCols() + " columns not "
+                            + cells.nRows + " and " + cells.nCols);
                 }
-                filename += "" + hour + "00.txt";
-                inputFile = Paths.get(
-                        indir.toString(),
-                        filename);
-                statisticsPerHour[resultIndex] = getStatistics(inputFile, intervalRange, startIntervalBound, outdir);
-                resultIndex++;
+                cells.next(t);
+                add(g, cells);
             }
+        } finally {
+            es.shutdownNow();
         }
-        inputFile = Paths.get(indir.toString(), "30t0000.txt");
-        statisticsPerHour[resultIndex] = getStatistics(inputFile, intervalRange, startIntervalBound, outdir);
+        if (cells == null) {
+            LOG.warning("No grids in " + inputs.dir);
+            return null;
+        }
+        cells.end();
+        if (ESRIAsciiGridExporter == null) {
+            ESRIAsciiGridExporter = new Grids_ESRIAsciiGridExporter(env);
+        }
+        for (FG_CellTimeSeriesStats.Statistic s
+                : FG_CellTimeSeriesStats.Statistic.values()) {
+            Grids_GridDouble g;
+            synchronized (env) {
+                g = gridFactoryDouble.create(cells.nRows, cells.nCols,
+                        dimensions);
+            }
+            for (int row = 0; row < cells.nRows; row++) {
+                for (int col = 0; col < cells.nCols; col++) {
+                    double v = cells.get(s, row, col);
+                    if (!Double.isNaN(v)) {
+                        g.setCell(row, col, v);
+                    }
+                }
+            }
+            Path file = Paths.get(outdir.toString(), s.name + ".asc");
+            ESRIAsciiGridExporter.toAsciiFile(g, file);
+            LOG.info(() -> "Written " + file);
+        }
+        return cells;
+    }
 
-        // Dominance
-        //double[] dominance = getDominance(statisticsPerHour);
-        // Write results
-        String line = getOutputHeader();
-        outputPW.println(line);
-        System.out.println(line);
-        resultIndex = 0;
-        for (int day = 24; day < 30; day++) {
-            for (int hour = 0; hour < 24; hour++) {
-                line = "" + day + "t";
-                if (hour < 10) {
-                    line += "0";
+    /**
+     * @param inputFile The input grid file.
+     * @return A task that reads the grid in inputFile.
+     */
+    private Callable<Grids_GridDouble> getLoader(Path inputFile) {
+        return () -> {
+            // Grids are created holding the lock used to get chunks.
+            synchronized (env) {
+                return gridFactoryDouble.create(new Generic_Path(inputFile));
+            }
+        };
+    }
+
+    /**
+     * Adds the values of g other than 0 and 1 to cells. Chunks are added in
+     * parallel if {@link #parallelSweep} is true. This is safe as each cell
+     * is in only one chunk. The cells of each chunk are copied using
+     * {@link #getCells} and added from the copy.
+     *
+     * @param g The grid.
+     * @param cells The statistics to add to.
+     * @throws Exception If encountered getting a chunk.
+     */
+    protected void add(Grids_GridDouble g, FG_CellTimeSeriesStats cells)
+            throws Exception {
+        int nChunkCols = g.getNChunkCols();
+        int nChunks = g.getNChunkRows() * nChunkCols;
+        int chunkNRows = g.getChunkNRows(0);
+        int chunkNCols = g.getChunkNCols(0);
+        double noDataValue = g.getNoDataValue();
+        IntStream chunks = IntStream.range(0, nChunks);
+        if (parallelSweep) {
+            chunks = chunks.parallel();
+        }
+        try {
+            chunks.forEach(i -> {
+                int cr = i / nChunkCols;
+                int cc = i % nChunkCols;
+                int nRows = g.getChunkNRows(cr);
+                int nCols = g.getChunkNCols(cc);
+                double[] values = new double[nRows * nCols];
+                try {
+                    getCells(g, cr, cc, values, 0, nCols);
+                } catch (Exception e) {
+                    throw new CompletionException(e);
                 }
-                line += "" + hour + "00";
-                Object[] resultPart = (Object[]) statisticsPerHour[resultIndex];
-                for (int i = 0; i < resultPart.length; i++) {
-                    line += "," + resultPart[i];
+                int row0 = cr * chunkNRows;
+                int col0 = cc * chunkNCols;
+                for (int row = 0; row < nRows; row++) {
+                    for (int col = 0; col < nCols; col++) {
+                        double v = values[row * nCols + col];
+                        if (v != noDataValue && v != 0.0d && v != 1.0d) {
+                            cells.add(row0 + row, col0 + col, v);
+                        }
+                    }
                 }
-                //line += "," + dominance[resultIndex];
-                outputPW.println(line);
-                System.out.println(line);
-                resultIndex++;
-            }
+            });
+        } catch (CompletionException e) {
+            throw (Exception) e.getCause();
         }
-        line = "30t0000";
-        Object[] resultPart = (Object[]) statisticsPerHour[resultIndex];
-        for (int i = 0; i < resultPart.length; i++) {
-            line += "," + resultPart[i];
+    }
+
+    /**
+     * Writes a line of output for a grid.
+     *
+     * @param output The output.
+     * @param label The label for the grid.
+     * @param resultPart The statistics for the grid as returned from
+     * {@link #getStatistics(Path, double, double, Path)}.
+     * @throws IOException If encountered.
+     */
+    protected void writeResult(FG_CSVWriter output, String label,
+            Object[] resultPart) throws IOException {
+        output.add(label);
+        for (Object r : resultPart) {
+            output.add(r);
         }
-        //line += "," + dominance[resultIndex];
-        outputPW.println(line);
-        System.out.println(line);
-        outputPW.close();
+        //output.add(dominance[resultIndex]);
+        output.endLine();
     }
 
     public String getOutputHeader() {
@@ -270,7 +668,28 @@ public class TemperatureGridDataProcessing extends Grids_ProcessorDEM {
                 + "maximumDiversityOverIntervalsWithValues,"
                 + "dominanceOverIntervalsWithValues,"
                 + "maximumDiversityOverIntervalsInObservedRange,"
-                + "dominanceOverIntervalsInObservedRange";
+                + "dominanceOverIntervalsInObservedRange"
+                + getPercentilesHeader();
+    }
+
+    /**
+     * @return The header for {@link #percentiles}.
+     */
+    private String getPercentilesHeader() {
+        StringBuilder sb = new StringBuilder();
+        for (double p : percentiles) {
+            sb.append(',').append(getPercentileName(p));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * @param p A quantile.
+     * @return The name of p as a percentile, e.g. "P5" for 0.05.
+     */
+    private static String getPercentileName(double p) {
+        return "P" + BigDecimal.valueOf(p).movePointRight(2)
+                .stripTrailingZeros().toPlainString();
     }
 
     /**
@@ -288,216 +707,147 @@ public class TemperatureGridDataProcessing extends Grids_ProcessorDEM {
      * maximumDiversityOverIntervalsWithValues result[29] =
      * dominanceOverIntervalsWithValues result[30] =
      * maximumDiversityOverIntervalsInObservedRange result[31] =
-     * dominanceOverIntervalsInObservedRange
+     * dominanceOverIntervalsInObservedRange followed by any
+     * {@link #percentiles}.
      */
     public Object[] getStatistics(Path inputFile, double intervalRange,
             double startIntervalBound, Path outputDirectory)
             throws IOException, Exception {
+        return getStatistics(inputFile, new FG_Intervals[]{
+            new FG_Intervals(intervalRange, startIntervalBound)})[0];
+    }
+
+    /**
+     * Calculates statistics for the grid in inputFile for each of intervals.
+     * The grid is read and swept once. The statistics that depend on the
+     * intervals are calculated for each of intervals from the counts of each
+     * distinct value.
+     *
+     * @param inputFile The input grid file.
+     * @param intervals The intervals.
+     * @return For each of intervals, the statistics in the order described
+     * for {@link #getStatistics(Path, double, double, Path)}.
+     * @throws IOException If encountered.
+     * @throws Exception If encountered.
+     */
+    public Object[][] getStatistics(Path inputFile, FG_Intervals[] intervals)
+            throws IOException, Exception {
+        LOG.info(() -> "File " + inputFile);
         RoundingMode rm = RoundingMode.HALF_UP;
-        int numberOfOutputs = 32;
+        int numberOfOutputs = 32 + percentiles.length;
         Object[] result = new Object[numberOfOutputs];
+        Object[][] results = new Object[intervals.length][];
         int outputIndex = 0;
-        Grids_GridDouble g = gridFactoryDouble.create(new Generic_Path(inputFile));
-        Grids_StatsNumber gStatistics = g.getStats();
-        Grids_StatsNotUpdatedDouble stats = (Grids_StatsNotUpdatedDouble) gStatistics;
         int ten = 10;
         int hundred = 100;
-        BigDecimal mean = stats.getArithmeticMean(hundred, rm);
-        double min = stats.getMin(true);
-        System.out.println("min " + min);
-        result[outputIndex] = min;
+        FG_GridCache grid = gridCache ? FG_GridCache.read(inputFile) : null;
+        Sweep sweep;
+        if (grid == null) {
+            Grids_GridDouble g;
+            // Grids are created holding the lock used to get chunks.
+            synchronized (env) {
+                g = gridFactoryDouble.create(new Generic_Path(inputFile));
+            }
+            Grids_StatsNumber gStatistics = g.getStats();
+            Grids_StatsNotUpdatedDouble stats = (Grids_StatsNotUpdatedDouble) gStatistics;
+            grid = new FG_GridCache(g.getNRows(), g.getNCols(),
+                    g.getNoDataValue());
+            grid.n = stats.getN();
+            grid.min = stats.getMin(true);
+            grid.max = stats.getMax(true);
+            grid.mean = stats.getArithmeticMean(hundred, rm).doubleValue();
+            grid.standardDeviation = stats.getStandardDeviation(ten, rm)
+                    .doubleValue();
+            grid.sum = stats.getSum().setScale(ten, rm).doubleValue();
+            // Recalculate statistics ignoring zeros and ones and initialise
+            // value counts
+            sweep = sweep(g);
+            if (gridCache) {
+                writeCache(g, grid, inputFile);
+            }
+        } else {
+            LOG.fine(() -> "Using " + FG_GridCache.getPath(inputFile));
+            sweep = sweep(grid);
+        }
+        fine("min", grid.min);
+        result[outputIndex] = grid.min;
         outputIndex++;
-        double max = stats.getMax(true);
-        System.out.println("max " + max);
-        result[outputIndex] = max;
+        fine("max", grid.max);
+        result[outputIndex] = grid.max;
         outputIndex++;
-        System.out.println("mean " + mean.toString());
-        result[outputIndex] = mean.doubleValue();
+        fine("mean", grid.mean);
+        result[outputIndex] = grid.mean;
         outputIndex++;
-        BigDecimal standardDeviation;
-        standardDeviation = stats.getStandardDeviation(ten, rm);
-        System.out.println("standard deviation "
-                + standardDeviation.toString());
-        result[outputIndex] = standardDeviation.doubleValue();
+        fine("standard deviation", grid.standardDeviation);
+        result[outputIndex] = grid.standardDeviation;
         outputIndex++;
-        BigDecimal sum = stats.getSum().setScale(ten, rm);
-        System.out.println("sum " + sum.toString());
-        result[outputIndex] = sum.doubleValue();
+        fine("sum", grid.sum);
+        result[outputIndex] = grid.sum;
         outputIndex++;
-        System.out.println("number of non-NoDataValues " + stats.getN());
-        BigDecimal intervalRangeBD = new BigDecimal("" + intervalRange);
-        BigDecimal startIntervalBoundBD = new BigDecimal("" + startIntervalBound);
-        double noDataValue = g.getNoDataValue();
-        //System.out.println("NoDataValue " + noDataValue);
-
-        long row;
-        long col;
-        long nRows = g.getNRows();
-        long nCols = g.getNCols();
-        TreeMap<Double, Long> valueCountMap = new TreeMap<Double, Long>();
-        TreeMap<Long, Long> intervalCountMap = new TreeMap<Long, Long>();
+        fine("number of non-NoDataValues", grid.n);
 
         double v;
-        BigDecimal vBD;
         long count;
-        long interval_ID;
-        long n = 0;
-        int oneCounter = 0;
-        int zeroCounter = 0;
-        double minIgnoringZeroAndOne = Double.MAX_VALUE;
-        double maxIgnoringZeroAndOne = -Double.MAX_VALUE;
-
-        // Recalculate statistics ignoring zeros and ones and initialise
-        // value and interval maps and
-        BigDecimal sumIgnoringOne_BigDecimal = BigDecimal.ZERO;
-        for (row = 0; row < nRows; row++) {
-            for (col = 0; col < nCols; col++) {
-                v = g.getCell(row, col);
-                if (v != noDataValue) {
-                    if (v == 1.0d) {
-                        oneCounter++;
-                    } else {
-                        if (v == 0.0d) {
-                            zeroCounter++;
-                        } else {
-                            n++;
-                            vBD = new BigDecimal(Double.toString(v));
-                            sumIgnoringOne_BigDecimal
-                                    = sumIgnoringOne_BigDecimal.add(vBD);
-                            minIgnoringZeroAndOne = Math.min(
-                                    minIgnoringZeroAndOne, v);
-                            maxIgnoringZeroAndOne = Math.max(
-                                    maxIgnoringZeroAndOne, v);
-                            if (valueCountMap.containsKey(v)) {
-                                count = valueCountMap.get(v);
-                                count++;
-                                valueCountMap.put(v, count);
-                            } else {
-                                valueCountMap.put(v, 1L);
-                            }
-                            interval_ID = getInterval(
-                                    v,
-                                    intervalRange,
-                                    startIntervalBound);
-                            if (intervalCountMap.containsKey(interval_ID)) {
-                                count = intervalCountMap.get(interval_ID);
-                                count++;
-                                intervalCountMap.put(interval_ID, count);
-                            } else {
-                                intervalCountMap.put(interval_ID, 1L);
-                            }
-                        }
-                    }
-                }
-            }
-        }
+        long n = sweep.n;
+        int oneCounter = sweep.oneCounter;
+        int zeroCounter = sweep.zeroCounter;
+        double minIgnoringZeroAndOne = sweep.min;
+        double maxIgnoringZeroAndOne = sweep.max;
+        FG_DoubleHistogram valueCounts = sweep.sketch == null
+                ? sweep.valueCounts : sweep.sketch.getHistogram();
         if (n != 0) {
-            System.out.println("number of values other than 1 or 0 " + n);
+            fine("number of values other than 1 or 0", n);
             result[outputIndex] = n;
             outputIndex++;
-            System.out.println(
-                    "number of values of 1 which are ignored " + oneCounter);
+            fine("number of values of 1 which are ignored", oneCounter);
             result[outputIndex] = oneCounter;
             outputIndex++;
-            System.out.println(
-                    "number of values of 0 which are ignored " + zeroCounter);
+            fine("number of values of 0 which are ignored", zeroCounter);
             result[outputIndex] = zeroCounter;
             outputIndex++;
-            System.out.println(
-                    "min value ignoring values of 0 and 1 "
-                    + minIgnoringZeroAndOne);
+            fine("min value ignoring values of 0 and 1", minIgnoringZeroAndOne);
             result[outputIndex] = minIgnoringZeroAndOne;
-            System.out.println(
-                    "max value ignoring values of 0 and 1 "
-                    + maxIgnoringZeroAndOne);
+            fine("max value ignoring values of 0 and 1", maxIgnoringZeroAndOne);
             outputIndex++;
             result[outputIndex] = maxIgnoringZeroAndOne;
             outputIndex++;
             double rangeIgnoringZeroAndOne = maxIgnoringZeroAndOne
                     - minIgnoringZeroAndOne;
-            System.out.println(
-                    "range ignoring values of 0 and 1 "
-                    + rangeIgnoringZeroAndOne);
+            fine("range ignoring values of 0 and 1", rangeIgnoringZeroAndOne);
             result[outputIndex] = rangeIgnoringZeroAndOne;
             outputIndex++;
-            BigDecimal n_BigDecimal = new BigDecimal(n);
-            BigDecimal meanIgnoringZeroAndOne_BigDecimal
-                    = sumIgnoringOne_BigDecimal.divide(
-                            n_BigDecimal, ten, rm);
-            System.out.println("mean ignoring values of 0 and 1 "
-                    + meanIgnoringZeroAndOne_BigDecimal.doubleValue());
-            result[outputIndex] = meanIgnoringZeroAndOne_BigDecimal;
+            // Calculate mean and moments from the distinct values and counts
+            FG_Quantiles quantiles = new FG_Quantiles(valueCounts);
+            int variety = quantiles.size();
+            double[] values = quantiles.getValues();
+            long[] counts = quantiles.getCounts();
+            FG_Moments moments = new FG_Moments();
+            moments.calculate(values, counts, variety, engine);
+            fine("mean ignoring values of 0 and 1", moments.mean);
+            result[outputIndex] = moments.mean;
             outputIndex++;
 
-            // Calculate mean and moments, mode and quartiles
-            long numberOfValuesAboveMean = 0L;
-            long numberOfValuesBelowMean = 0L;
-            // sum of mean differences
-            BigDecimal moment1 = BigDecimal.ZERO;
-            // sum of mean differences squared
-            BigDecimal moment2 = BigDecimal.ZERO;
-            // sum of mean differences cubed
-            BigDecimal moment3 = BigDecimal.ZERO;
-            // sum of mean differences to power 4
-            BigDecimal moment4 = BigDecimal.ZERO;
-            BigDecimal differenceFromMean;
+            // Calculate mode and quartiles
             HashSet<Double> mode_HashSet = new HashSet<Double>();
             long modeCount = 0;
-            double medianIndex = n / 2.0d;
-            long medianIndex_long = (long) medianIndex;
-            double median = Double.NaN;
-            boolean medianUnset = true;
-            // if modeIndex == modeIndex_long then there is a single mode 
-            // otherwise average most frequent numbers to calculate mode.
-            double lowerQuartileIndex = n / 4.0d;
-            long lowerQuartileIndex_long = (long) lowerQuartileIndex;
-            double lowerQuartile = Double.NaN;
-            boolean lowerQuartileUnset = true;
-            double upperQuartileIndex = (n * 3) / 4.0d;
-            long upperQuartileIndex_long = (long) upperQuartileIndex;
-            double upperQuartile = Double.NaN;
-            boolean upperQuartileUnset = true;
-            long sumCount = 0L;
-            System.out.println("<CellValues with counts>");
-            Iterator<Double> a_Iterator = valueCountMap.keySet().iterator();
-            while (a_Iterator.hasNext()) {
-                v = a_Iterator.next();
-                count = valueCountMap.get(v);
-                System.out.println("cellValue " + v + " number of such values " + count);
-                vBD = new BigDecimal(v);
-                if (vBD.compareTo(meanIgnoringZeroAndOne_BigDecimal) == -1) {
-                    numberOfValuesBelowMean++;
-                } else {
-                    if (vBD.compareTo(meanIgnoringZeroAndOne_BigDecimal) == 1) {
-                        numberOfValuesAboveMean++;
-                    }
-                }
-                differenceFromMean = vBD.subtract(
-                        meanIgnoringZeroAndOne_BigDecimal);
-                for (int i = 0; i < count; i++) {
-                    moment1 = moment1.add(differenceFromMean);
-                    moment2 = moment2.add(differenceFromMean.pow(2));
-                    moment3 = moment3.add(differenceFromMean.pow(3));
-                    moment4 = moment4.add(differenceFromMean.pow(4));
-                }
-                sumCount += count;
-                if (lowerQuartileUnset) {
-                    if (sumCount > lowerQuartileIndex_long) {
-                        lowerQuartile = v;
-                        lowerQuartileUnset = false;
-                    }
-                }
-                if (medianUnset) {
-                    if (sumCount > medianIndex_long) {
-                        median = v;
-                        medianUnset = false;
-                    }
-                }
-                if (upperQuartileUnset) {
-                    if (sumCount > upperQuartileIndex_long) {
-                        upperQuartile = v;
-                        upperQuartileUnset = false;
-                    }
+            double lowerQuartile = quantiles.get(0.25d);
+            double median = quantiles.get(0.5d);
+            double upperQuartile = quantiles.get(0.75d);
+            for (int i = 0; i < percentiles.length; i++) {
+                double p = quantiles.get(percentiles[i]);
+                fine(getPercentileName(percentiles[i]), p);
+                result[numberOfOutputs - percentiles.length + i] = p;
+            }
+            boolean logValues = LOG.isLoggable(Level.FINEST);
+            if (logValues) {
+                LOG.finest("<CellValues with counts>");
+            }
+            for (int k = 0; k < variety; k++) {
+                v = values[k];
+                count = counts[k];
+                if (logValues) {
+                    LOG.finest("cellValue " + v + " number of such values "
+                            + count);
                 }
                 if (count > modeCount) {
                     modeCount = count;
@@ -509,69 +859,51 @@ public class TemperatureGridDataProcessing extends Grids_ProcessorDEM {
                     }
                 }
             }
-            System.out.println("</CellValues with counts>");
-            moment1 = moment1.divide(n_BigDecimal, ten, rm);
-            System.out.println("moment1 " + moment1.setScale(ten, rm));
-            result[outputIndex] = moment1.doubleValue();
+            if (logValues) {
+                LOG.finest("</CellValues with counts>");
+            }
+            fine("moment1", moments.moment1);
+            result[outputIndex] = moments.moment1;
             outputIndex++;
-            moment2 = moment2.divide(n_BigDecimal, ten, rm);
-            System.out.println("moment2 " + moment2.setScale(ten, rm));
-            result[outputIndex] = moment2.doubleValue();
+            fine("moment2", moments.moment2);
+            result[outputIndex] = moments.moment2;
             outputIndex++;
-            moment3 = moment3.divide(n_BigDecimal, ten, rm);
-            System.out.println("moment3 " + moment3.setScale(ten, rm));
-            result[outputIndex] = moment3.doubleValue();
+            fine("moment3", moments.moment3);
+            result[outputIndex] = moments.moment3;
             outputIndex++;
-            moment4 = moment4.divide(n_BigDecimal, ten, rm);
-            System.out.println("moment4 " + moment4.setScale(ten, rm));
-            result[outputIndex] = moment4.doubleValue();
+            fine("moment4", moments.moment4);
+            result[outputIndex] = moments.moment4;
             outputIndex++;
 
             // Skewness
             // Cyhelsky's skewness coefficient
-            double skewnessCyhelsky
-                    = (numberOfValuesBelowMean - numberOfValuesAboveMean) / (double) n;
-            System.out.println("skewnessCyhelsky " + skewnessCyhelsky);
+            double skewnessCyhelsky = (moments.numberOfValuesBelowMean
+                    - moments.numberOfValuesAboveMean) / (double) n;
+            fine("skewnessCyhelsky", skewnessCyhelsky);
             result[outputIndex] = skewnessCyhelsky;
             outputIndex++;
-            BigDecimal sqrt_moment2 = Math_BigDecimal.power(
-                    moment2,
-                    Math_BigDecimal.HALF,
-                    ten,
-                    rm);
-            BigDecimal skewnessDenominator = sqrt_moment2.multiply(moment2);
-            BigDecimal skewness
-                    = moment3.divide(skewnessDenominator, 100, rm);
-            System.out.println("skewness "
-                    + skewness.setScale(ten, rm));
-            result[outputIndex] = skewness.doubleValue();
+            fine("skewness", moments.skewness);
+            result[outputIndex] = moments.skewness;
             outputIndex++;
-
-            BigDecimal kurtosisDenominatorPart = moment2.multiply(moment2);
-            BigDecimal kurtosis
-                    = (moment4.divide(kurtosisDenominatorPart, 100, rm))
-                            .subtract(new BigDecimal("3"));
-            System.out.println("kurtosis "
-                    + kurtosis.setScale(ten, rm));
-            result[outputIndex] = kurtosis.doubleValue();
+            fine("kurtosis", moments.kurtosis);
+            result[outputIndex] = moments.kurtosis;
             outputIndex++;
-            long variety = valueCountMap.size();
-            System.out.println("number of different values " + variety);
+            fine("number of different values", variety);
             result[outputIndex] = variety;
             outputIndex++;
 
-            System.out.println("upperQuartile " + upperQuartile);
+            fine("upperQuartile", upperQuartile);
             result[outputIndex] = upperQuartile;
             outputIndex++;
-            System.out.println("median " + median);
+            fine("median", median);
             result[outputIndex] = median;
             outputIndex++;
-            System.out.println("lowerQuartile " + lowerQuartile);
+            fine("lowerQuartile", lowerQuartile);
             result[outputIndex] = lowerQuartile;
             outputIndex++;
 
             //System.out.println("mode_HashSet.size() " + mode_HashSet.size());
-            a_Iterator = mode_HashSet.iterator();
+            Iterator<Double> a_Iterator = mode_HashSet.iterator();
             BigDecimal modeSum = BigDecimal.ZERO;
             double modePart;
             while (a_Iterator.hasNext()) {
@@ -587,195 +919,539 @@ public class TemperatureGridDataProcessing extends Grids_ProcessorDEM {
                 BigDecimal divisor = new BigDecimal("" + mode_HashSet.size());
                 mode = modeSum.divide(divisor, 100, rm);
             }
-            System.out.println("mode "
-                    + mode.setScale(ten, rm).toString());
+            fine("mode", mode.setScale(ten, rm));
             result[outputIndex] = mode.doubleValue();
             outputIndex++;
 
-            // Find mode interval
-            int intervalVariety = intervalCountMap.size();
-            System.out.println("number of different intervals with values " + intervalVariety);
-            result[outputIndex] = intervalVariety;
-            outputIndex++;
-            HashSet<Long> modeInterval_HashSet = new HashSet<Long>();
-            long modeIntervalCount = 0;
-
-            double minOfInterval;
-            double maxOfInterval;
-            BigDecimal minOfInterval_BigDecimal;
-            BigDecimal maxOfInterval_BigDecimal;
-
-            System.out.println("<Intervals with counts>");
-            Iterator<Long> b_Iterator
-                    = intervalCountMap.keySet().iterator();
-            while (b_Iterator.hasNext()) {
-                interval_ID = b_Iterator.next();
-                //minOfInterval = ((double) interval_ID * intervalRange) + startIntervalBound;
-                minOfInterval_BigDecimal
-                        = (new BigDecimal(interval_ID).multiply(intervalRangeBD))
-                                .add(startIntervalBoundBD);
-                //maxOfInterval = minOfInterval + intervalRange;
-                maxOfInterval_BigDecimal = minOfInterval_BigDecimal.add(intervalRangeBD);
-                count = intervalCountMap.get(interval_ID);
+            // Calculate interval statistics for each set of intervals from
+            // the value counts
+            for (int i = 0; i < intervals.length; i++) {
+                results[i] = result.clone();
+                addIntervalStatistics(results[i], outputIndex, intervals[i],
+                        values, counts, variety, n, rangeIgnoringZeroAndOne,
+                        modeCount);
+            }
+        } else {
+            for (int i = 0; i < intervals.length; i++) {
+                results[i] = result.clone();
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Calculates the interval statistics for intervals and adds them to
+     * result. The counts of values in each interval are got from the counts
+     * of each distinct value rather than from the grid, so this costs
+     * O(variety) rather than O(number of cells).
+     *
+     * @param result The result to add to.
+     * @param outputIndex The index in result of the first interval statistic.
+     * @param intervals The intervals.
+     * @param values The distinct values.
+     * @param counts The counts of each value.
+     * @param variety The number of distinct values.
+     * @param n The number of values.
+     * @param rangeIgnoringZeroAndOne The range of the values.
+     * @param modeCount The count of the mode value.
+     */
+    private void addIntervalStatistics(Object[] result, int outputIndex,
+            FG_Intervals intervals, double[] values, long[] counts,
+            int variety, long n, double rangeIgnoringZeroAndOne,
+            long modeCount) {
+        fine("intervals", intervals);
+        RoundingMode rm = RoundingMode.HALF_UP;
+        int ten = 10;
+        double intervalRange = intervals.range;
+        double startIntervalBound = intervals.startBound;
+        BigDecimal intervalRangeBD = new BigDecimal("" + intervalRange);
+        BigDecimal startIntervalBoundBD = new BigDecimal("" + startIntervalBound);
+        FG_LongHistogram intervalCounts = new FG_LongHistogram();
+        for (int k = 0; k < variety; k++) {
+            intervalCounts.add(intervals.getInterval(values[k]), counts[k]);
+        }
+        long count;
+        long interval_ID;
+        double modePart;
+
+        // Find mode interval
+        intervalCounts.sort();
+        int intervalVariety = intervalCounts.size();
+        long[] intervalIDs = intervalCounts.getSortedKeys();
+        long[] intervalIDCounts = intervalCounts.getSortedCounts();
+        fine("number of different intervals with values", intervalVariety);
+        result[outputIndex] = intervalVariety;
+        outputIndex++;
+        HashSet<Long> modeInterval_HashSet = new HashSet<Long>();
+        long modeIntervalCount = 0;
+
+        double minOfInterval;
+        double maxOfInterval;
+        BigDecimal minOfInterval_BigDecimal;
+        BigDecimal maxOfInterval_BigDecimal;
+
+        boolean logIntervals = LOG.isLoggable(Level.FINER);
+        if (logIntervals) {
+            LOG.finer("<Intervals with counts>");
+        }
+        for (int k = 0; k < intervalVariety; k++) {
+            interval_ID = intervalIDs[k];
+            //minOfInterval = ((double) interval_ID * intervalRange) + startIntervalBound;
+            minOfInterval_BigDecimal
+                    = (new BigDecimal(interval_ID).multiply(intervalRangeBD))
+                            .add(startIntervalBoundBD);
+            //maxOfInterval = minOfInterval + intervalRange;
+            maxOfInterval_BigDecimal = minOfInterval_BigDecimal.add(intervalRangeBD);
+            count = intervalIDCounts[k];
 //                System.out.println(
 //                        "minOfInterval " + minOfInterval + 
 //                        " maxOfInterval " + maxOfInterval + 
 //                        " number of such values " + count);
-                System.out.println(
-                        "minOfInterval_BigDecimal " + minOfInterval_BigDecimal
-                        + " maxOfInterval_BigDecimal " + maxOfInterval_BigDecimal
+            if (logIntervals) {
+                LOG.finer("minOfInterval_BigDecimal "
+                        + minOfInterval_BigDecimal
+                        + " maxOfInterval_BigDecimal "
+                        + maxOfInterval_BigDecimal
                         + " number of such values " + count);
-                if (count > modeCount) {
-                    modeCount = count;
-                    modeInterval_HashSet = new HashSet<Long>();
+            }
+            if (count > modeCount) {
+                modeCount = count;
+                modeInterval_HashSet = new HashSet<Long>();
+                modeInterval_HashSet.add(interval_ID);
+            } else {
+                if (count == modeCount) {
                     modeInterval_HashSet.add(interval_ID);
-                } else {
-                    if (count == modeCount) {
-                        modeInterval_HashSet.add(interval_ID);
-                    }
                 }
             }
-            System.out.println("</Intervals with counts>");
-            //System.out.println("modeInterval_HashSet.size() " + modeInterval_HashSet.size());
-            b_Iterator = modeInterval_HashSet.iterator();
-            BigDecimal modeIntervalSum = BigDecimal.ZERO;
-            double adjuster = startIntervalBound + (intervalRange / 2.0d);
-            while (b_Iterator.hasNext()) {
-                modePart = (b_Iterator.next() * intervalRange) + adjuster;
-                //System.out.println("modeIntervalPart " + modePart);
-                modeIntervalSum = modeIntervalSum.add(
-                        new BigDecimal(modePart));
-            }
-            //System.out.println("modeIntervalSum " + modeIntervalSum.toString());
-            BigDecimal modeInterval;
-            if (modeInterval_HashSet.isEmpty()) {
-                modeInterval = BigDecimal.ZERO;
-            } else {
-                BigDecimal divisor = new BigDecimal(
-                        "" + modeInterval_HashSet.size());
-                modeInterval = modeIntervalSum.divide(
-                        divisor, ten, rm);
-            }
-            System.out.println("modeInterval " + modeInterval.toString());
-            // Mean of the values in the mode intervals might be a better than 
-            // the mid point of the mode interval...
-
-            // Dominance
-            double proportionOfClass;
-            double logProportionOfClass;
-            //double log10ProportionOfClass;
-            double diversity = 0.0d;
-            double sumProportionOfClassSquared = 0.0d;
-            double proportionOfClassMax;
-            double logProportionOfClassMax;
-            //double log10ProportionOfClassMax;
-            double sumProportionOfClassMaxSquared = 0.0d;
-            double diversityMax = 0.0d;
-            double evenSpread = (double) n / (double) intervalVariety;
-            long evenSpreadLong;
-            long intervalsRemaining = intervalVariety;
-            long remainingSpread = n;
-            b_Iterator = intervalCountMap.keySet().iterator();
-            while (b_Iterator.hasNext()) {
-                interval_ID = b_Iterator.next();
-                count = intervalCountMap.get(
-                        interval_ID);
-                proportionOfClass = (double) count / (double) n;
-                sumProportionOfClassSquared
-                        += proportionOfClass * proportionOfClass;
-                logProportionOfClass = Math.log(proportionOfClass);
-                //log10ProportionOfClass = Math.log10(proportionOfClass);
-                diversity -= proportionOfClass * logProportionOfClass;
-                //diversity -= proportionOfClass * log10ProportionOfClass;
-                evenSpread = (double) remainingSpread
-                        / (double) intervalsRemaining;
-                evenSpreadLong = (long) evenSpread;
-                remainingSpread -= evenSpreadLong;
-                intervalsRemaining--;
-                proportionOfClassMax = (double) evenSpreadLong / (double) n;
-                sumProportionOfClassMaxSquared
-                        += proportionOfClassMax * proportionOfClassMax;
-                logProportionOfClassMax = Math.log(proportionOfClassMax);
-                //log10ProportionOfClassMax = Math.log10(proportionOfClassMax);
-                //diversityMax = proportionOfClassMax * log10ProportionOfClassMax;
-                diversityMax -= proportionOfClassMax * logProportionOfClassMax;
-            }
-
-            int numberOfIntervalsInRange
-                    = (int) Math.ceil(rangeIgnoringZeroAndOne / intervalRange);
-            remainingSpread = n;
-            intervalsRemaining = numberOfIntervalsInRange;
-            double diversityMax2 = 0.0d;
-            //double sumProportionOfClassMaxSquared2 = 0.0d;
-            double logProportionOfClassMax2;
-            for (int i = 0; i < numberOfIntervalsInRange; i++) {
-                evenSpread
-                        = (double) remainingSpread / (double) intervalsRemaining;
-                evenSpreadLong = (long) evenSpread;
-                remainingSpread -= evenSpreadLong;
-                intervalsRemaining--;
-                proportionOfClassMax = (double) evenSpreadLong / (double) n;
+        }
+        if (logIntervals) {
+            LOG.finer("</Intervals with counts>");
+        }
+        //System.out.println("modeInterval_HashSet.size() " + modeInterval_HashSet.size());
+        Iterator<Long> b_Iterator = modeInterval_HashSet.iterator();
+        BigDecimal modeIntervalSum = BigDecimal.ZERO;
+        double adjuster = startIntervalBound + (intervalRange / 2.0d);
+        while (b_Iterator.hasNext()) {
+            modePart = (b_Iterator.next() * intervalRange) + adjuster;
+            //System.out.println("modeIntervalPart " + modePart);
+            modeIntervalSum = modeIntervalSum.add(
+                    new BigDecimal(modePart));
+        }
+        //System.out.println("modeIntervalSum " + modeIntervalSum.toString());
+        BigDecimal modeInterval;
+        if (modeInterval_HashSet.isEmpty()) {
+            modeInterval = BigDecimal.ZERO;
+        } else {
+            BigDecimal divisor = new BigDecimal(
+                    "" + modeInterval_HashSet.size());
+            modeInterval = modeIntervalSum.divide(
+                    divisor, ten, rm);
+        }
+        fine("modeInterval", modeInterval);
+        // Mean of the values in the mode intervals might be a better than 
+        // the mid point of the mode interval...
+
+        // Dominance
+        double proportionOfClass;
+        double logProportionOfClass;
+        //double log10ProportionOfClass;
+        double diversity = 0.0d;
+        double sumProportionOfClassSquared = 0.0d;
+        double proportionOfClassMax;
+        double logProportionOfClassMax;
+        //double log10ProportionOfClassMax;
+        double sumProportionOfClassMaxSquared = 0.0d;
+        double diversityMax = 0.0d;
+        double evenSpread = (double) n / (double) intervalVariety;
+        long evenSpreadLong;
+        long intervalsRemaining = intervalVariety;
+        long remainingSpread = n;
+        for (int k = 0; k < intervalVariety; k++) {
+            count = intervalIDCounts[k];
+            proportionOfClass = (double) count / (double) n;
+            sumProportionOfClassSquared
+                    += proportionOfClass * proportionOfClass;
+            logProportionOfClass = Math.log(proportionOfClass);
+            //log10ProportionOfClass = Math.log10(proportionOfClass);
+            diversity -= proportionOfClass * logProportionOfClass;
+            //diversity -= proportionOfClass * log10ProportionOfClass;
+            evenSpread = (double) remainingSpread
+                    / (double) intervalsRemaining;
+            evenSpreadLong = (long) evenSpread;
+            remainingSpread -= evenSpreadLong;
+            intervalsRemaining--;
+            proportionOfClassMax = (double) evenSpreadLong / (double) n;
+            sumProportionOfClassMaxSquared
+                    += proportionOfClassMax * proportionOfClassMax;
+            logProportionOfClassMax = Math.log(proportionOfClassMax);
+            //log10ProportionOfClassMax = Math.log10(proportionOfClassMax);
+            //diversityMax = proportionOfClassMax * log10ProportionOfClassMax;
+            diversityMax -= proportionOfClassMax * logProportionOfClassMax;
+        }
+
+        int numberOfIntervalsInRange
+                = (int) Math.ceil(rangeIgnoringZeroAndOne / intervalRange);
+        remainingSpread = n;
+        intervalsRemaining = numberOfIntervalsInRange;
+        double diversityMax2 = 0.0d;
+        //double sumProportionOfClassMaxSquared2 = 0.0d;
+        double logProportionOfClassMax2;
+        for (int i = 0; i < numberOfIntervalsInRange; i++) {
+            evenSpread
+                    = (double) remainingSpread / (double) intervalsRemaining;
+            evenSpreadLong = (long) evenSpread;
+            remainingSpread -= evenSpreadLong;
+            intervalsRemaining--;
+            proportionOfClassMax = (double) evenSpreadLong / (double) n;
 //                sumProportionOfClassMaxSquared2 += 
 //                        proportionOfClassMax * proportionOfClassMax;
-                logProportionOfClassMax2 = Math.log(proportionOfClassMax);
-                //log10ProportionOfClassMax = Math.log10(proportionOfClassMax);
-                //diversityMax = proportionOfClassMax * log10ProportionOfClassMax;
-                diversityMax2 -= proportionOfClassMax * logProportionOfClassMax2;
-            }
-            System.out.println("diversity " + diversity);
-            result[outputIndex] = diversity;
-            outputIndex++;
+            logProportionOfClassMax2 = Math.log(proportionOfClassMax);
+            //log10ProportionOfClassMax = Math.log10(proportionOfClassMax);
+            //diversityMax = proportionOfClassMax * log10ProportionOfClassMax;
+            diversityMax2 -= proportionOfClassMax * logProportionOfClassMax2;
+        }
+        fine("diversity", diversity);
+        result[outputIndex] = diversity;
+        outputIndex++;
 //            double intervalVarietyEvenness = 
 //                    (-100.0d * Math.Log(sumProportionOfClassSquared)) / 
 //                    Math.Log(intervalVariety);
-            double intervalVarietyEvenness
-                    = (-100.0d * Math.log10(sumProportionOfClassSquared))
-                    / Math.log10(intervalVariety);
-            System.out.println(
-                    "intervalVarietyEvenness " + intervalVarietyEvenness);
-            result[outputIndex] = intervalVarietyEvenness;
-            outputIndex++;
+        double intervalVarietyEvenness
+                = (-100.0d * Math.log10(sumProportionOfClassSquared))
+                / Math.log10(intervalVariety);
+        fine("intervalVarietyEvenness", intervalVarietyEvenness);
+        result[outputIndex] = intervalVarietyEvenness;
+        outputIndex++;
 //            double numberOfIntervalsInRangeEvenness = 
 //                    (-100.0d * Math.Log(sumProportionOfClassSquared)) / 
 //                    Math.Log(numberOfIntervalsInRange);
-            double numberOfIntervalsInRangeEvenness
-                    = (-100.0d * Math.log10(sumProportionOfClassSquared))
-                    / Math.log10(numberOfIntervalsInRange);
-            System.out.println(
-                    "numberOfIntervalsInRangeEvenness "
-                    + numberOfIntervalsInRangeEvenness);
-            result[outputIndex] = numberOfIntervalsInRangeEvenness;
-            outputIndex++;
-            System.out.println(
-                    "maximumDiversityOverIntervalsWithValues " + diversityMax);
-            result[outputIndex] = diversityMax;
-            outputIndex++;
-            double dominance = diversityMax + diversity;
-            System.out.println("dominanceOverIntervalsWithValues " + dominance);
-            result[outputIndex] = dominance;
-            outputIndex++;
-            System.out.println(
-                    "maximumDiversityOverIntervalsInObservedRange "
-                    + diversityMax2);
-            result[outputIndex] = diversityMax2;
-            outputIndex++;
-            double dominance2 = diversityMax2 + diversity;
-            System.out.println(
-                    "dominanceOverIntervalsInObservedRange " + dominance2);
-            result[outputIndex] = dominance2;
+        double numberOfIntervalsInRangeEvenness
+                = (-100.0d * Math.log10(sumProportionOfClassSquared))
+                / Math.log10(numberOfIntervalsInRange);
+        fine("numberOfIntervalsInRangeEvenness",
+                numberOfIntervalsInRangeEvenness);
+        result[outputIndex] = numberOfIntervalsInRangeEvenness;
+        outputIndex++;
+        fine("maximumDiversityOverIntervalsWithValues", diversityMax);
+        result[outputIndex] = diversityMax;
+        outputIndex++;
+        double dominance = diversityMax + diversity;
+        fine("dominanceOverIntervalsWithValues", dominance);
+        result[outputIndex] = dominance;
+        outputIndex++;
+        fine("maximumDiversityOverIntervalsInObservedRange", diversityMax2);
+        result[outputIndex] = diversityMax2;
+        outputIndex++;
+        double dominance2 = diversityMax2 + diversity;
+        fine("dominanceOverIntervalsInObservedRange", dominance2);
+        result[outputIndex] = dominance2;
+    }
+
+    /**
+     * Logs a statistic at {@link Level#FINE}. The message is only built if it
+     * is to be logged.
+     *
+     * @param name The name of the statistic.
+     * @param value The value of the statistic.
+     */
+    private static void fine(String name, Object value) {
+        if (LOG.isLoggable(Level.FINE)) {
+            LOG.fine(name + " " + value);
+        }
+    }
+
+    /**
+     * Sweeps the cells of g chunk by chunk counting values of 0 and 1 and
+     * counting other values. If
+     * {@link #parallelSweep} is true, chunks are swept in parallel using the
+     * common ForkJoinPool. Each thread sweeps into its own {@link Sweep} and
+     * these are merged at the end, so no state is shared while sweeping.
+     * The cells of each chunk are copied using {@link #getCells} and swept
+     * from the copy.
+     *
+     * @param g The grid.
+     * @return The result of the sweep.
+     * @throws Exception If encountered getting a chunk.
+     */
+    protected Sweep sweep(Grids_GridDouble g) throws Exception {
+        int nChunkCols = g.getNChunkCols();
+        int nChunks = g.getNChunkRows() * nChunkCols;
+        double noDataValue = g.getNoDataValue();
+        IntStream chunks = IntStream.range(0, nChunks);
+        if (parallelSweep) {
+            chunks = chunks.parallel();
+        }
+        double error = relativeError;
+        try {
+            return chunks.collect(() -> new Sweep(noDataValue, error),
+                    (sweep, i) -> {
+                int cr = i / nChunkCols;
+                int cc = i % nChunkCols;
+                int nCols = g.getChunkNCols(cc);
+                int n = g.getChunkNRows(cr) * nCols;
+                double[] values = sweep.getBuffer(n);
+                try {
+                    getCells(g, cr, cc, values, 0, nCols);
+                } catch (Exception e) {
+                    throw new CompletionException(e);
+                }
+                sweep.add(values, n);
+            }, Sweep::merge);
+        } catch (CompletionException e) {
+            throw (Exception) e.getCause();
+        }
+    }
+
+    /**
+     * Sweeps the cells of grid band by band counting values of 0 and 1 and
+     * counting other values. Each band of rows is mapped from the cache
+     * file. If {@link #parallelSweep} is true, bands are swept in parallel
+     * as in {@link #sweep(Grids_GridDouble)}.
+     *
+     * @param grid The grid cache.
+     * @return The result of the sweep.
+     * @throws IOException If encountered mapping a band.
+     */
+    protected Sweep sweep(FG_GridCache grid) throws IOException {
+        int bandRows = (int) Math.max(1L, Math.min(grid.nRows,
+                BAND_SIZE / Math.max(1L, grid.nCols)));
+        int nBands = (int) ((grid.nRows + bandRows - 1) / bandRows);
+        IntStream bands = IntStream.range(0, nBands);
+        if (parallelSweep) {
+            bands = bands.parallel();
+        }
+        double error = relativeError;
+        try {
+            return bands.collect(() -> new Sweep(grid.noDataValue, error),
+                    (sweep, i) -> {
+                long startRow = (long) i * bandRows;
+                int nRows = (int) Math.min(bandRows, grid.nRows - startRow);
+                try {
+                    sweep.add(grid.getRows(startRow, nRows));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }, Sweep::merge);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Copies the cells of a chunk of g into values. The chunk is got and its
+     * cells are read holding the lock on {@link #env}, which is also held
+     * while grids are created. So the chunk is not swapped out or its cells
+     * changed by memory management triggered on another thread while it is
+     * read. The lock is held only for the copy, so the copy can be processed
+     * while other threads get chunks.
+     *
+     * @param g The grid.
+     * @param cr The chunk row.
+     * @param cc The chunk column.
+     * @param values The array to copy into. Cell (row, col) of the chunk is
+     * copied to values[offset + row * stride + col].
+     * @param offset The index in values of the first cell of the chunk.
+     * @param stride The distance in values between the rows of the chunk.
+     * @throws Exception If encountered getting the chunk.
+     */
+    protected void getCells(Grids_GridDouble g, int cr, int cc,
+            double[] values, int offset, int stride) throws Exception {
+        int nRows = g.getChunkNRows(cr);
+        int nCols = g.getChunkNCols(cc);
+        synchronized (env) {
+            Grids_ChunkDouble chunk = g.getChunk(new Grids_2D_ID_int(cr, cc));
+            for (int row = 0; row < nRows; row++) {
+                int i = offset + row * stride;
+                for (int col = 0; col < nCols; col++) {
+                    values[i + col] = chunk.getCell(row, col);
+                }
+            }
+        }
+    }
+
+    /**
+     * Writes the cells of g to a cache for inputFile. Cells are got a band
+     * of chunk rows at a time. If the cache cannot be written, a warning is
+     * logged and processing carries on without it.
+     *
+     * @param g The grid.
+     * @param grid The dimensions and statistics of g.
+     * @param inputFile The file g was read from.
+     * @throws Exception If encountered getting a chunk.
+     */
+    protected void writeCache(Grids_GridDouble g, FG_GridCache grid,
+            Path inputFile) throws Exception {
+        try (FG_GridCache.Writer w = grid.write(inputFile)) {
+            int nCols = (int) grid.nCols;
+            int nChunkCols = g.getNChunkCols();
+            int nChunkRows = g.getNChunkRows();
+            double[] band = new double[0];
+            for (int cr = 0; cr < nChunkRows; cr++) {
+                int nRows = g.getChunkNRows(cr);
+                if (band.length < nRows * nCols) {
+                    band = new double[nRows * nCols];
+                }
+                int col0 = 0;
+                for (int cc = 0; cc < nChunkCols; cc++) {
+                    getCells(g, cr, cc, band, col0, nCols);
+                    col0 += g.getChunkNCols(cc);
+                }
+                w.add(band, nRows * nCols);
+            }
+            w.commit();
+            LOG.fine(() -> "Written " + FG_GridCache.getPath(inputFile));
+        } catch (IOException e) {
+            LOG.warning("Unable to cache " + inputFile + ": " + e);
+        }
+    }
+
+    /**
+     * The counts, minimum and maximum from sweeping some or all of the
+     * chunks of a grid.
+     */
+    protected class Sweep {
+
+        private final double noDataValue;
+
+        /**
+         * The number of values other than 0 and 1.
+         */
+        long n;
+
+        /**
+         * The number of values of 1.
+         */
+        int oneCounter;
+
+        /**
+         * The number of values of 0.
+         */
+        int zeroCounter;
+
+        /**
+         * The minimum value ignoring values of 0 and 1.
+         */
+        double min = Double.MAX_VALUE;
+
+        /**
+         * The maximum value ignoring values of 0 and 1.
+         */
+        double max = -Double.MAX_VALUE;
+
+        /**
+         * The counts of each value other than 0 and 1, or null if
+         * {@link #sketch} is used instead.
+         */
+        final FG_DoubleHistogram valueCounts;
+
+        /**
+         * A sketch of the values other than 0 and 1, or null if
+         * {@link #valueCounts} is used instead.
+         */
+        final FG_QuantileSketch sketch;
+
+        /**
+         * @param noDataValue The no data value.
+         * @param relativeError If 0 values are counted exactly, otherwise
+         * they are added to a sketch with this relative error.
+         */
+        Sweep(double noDataValue, double relativeError) {
+            this.noDataValue = noDataValue;
+            if (relativeError == 0.0d) {
+                valueCounts = new FG_DoubleHistogram();
+                sketch = null;
+            } else {
+                valueCounts = null;
+                sketch = new FG_QuantileSketch(relativeError);
+            }
+        }
+
+        /**
+         * The array the cells of chunks are copied into, reused for each
+         * chunk swept into this.
+         */
+        private double[] buffer = new double[0];
+
+        /**
+         * @param n The number of values needed.
+         * @return An array of at least n values for the cells of a chunk.
+         */
+        double[] getBuffer(int n) {
+            if (buffer.length < n) {
+                buffer = new double[n];
+            }
+            return buffer;
+        }
+
+        /**
+         * Adds the first n values in values.
+         *
+         * @param values The values.
+         * @param n The number of values to add.
+         */
+        void add(double[] values, int n) {
+            for (int i = 0; i < n; i++) {
+                add(values[i]);
+            }
+        }
+
+        /**
+         * @param v The value to add.
+         */
+        private void add(double v) {
+            if (v != noDataValue) {
+                if (v == 1.0d) {
+                    oneCounter++;
+                } else if (v == 0.0d) {
+                    zeroCounter++;
+                } else {
+                    n++;
+                    min = Math.min(min, v);
+                    max = Math.max(max, v);
+                    if (sketch == null) {
+                        valueCounts.add(v);
+                    } else {
+                        sketch.add(v);
+                    }
+                }
+            }
+        }
+
+        /**
+         * Adds the values in band.
+         *
+         * @param band The values.
+         */
+        void add(DoubleBuffer band) {
+            int size = band.limit();
+            for (int i = 0; i < size; i++) {
+                add(band.get(i));
+            }
+        }
+
+        /**
+         * Adds the counts from s.
+         *
+         * @param s The other sweep.
+         */
+        void merge(Sweep s) {
+            n += s.n;
+            oneCounter += s.oneCounter;
+            zeroCounter += s.zeroCounter;
+            min = Math.min(min, s.min);
+            max = Math.max(max, s.max);
+            if (sketch == null) {
+                valueCounts.merge(s.valueCounts);
+            } else {
+                sketch.merge(s.sketch);
+            }
         }
-        return result;
     }
 
     public long getInterval(
             double value,
             double intervalRange,
             double startIntervalBound) {
-        long result;
-        Double resultAsDouble = (value - startIntervalBound) / intervalRange;
-        //System.out.println("resultAsDouble " + resultAsDouble);
-        result = resultAsDouble.longValue();
-        //System.out.println("resultAslong " + result);
-        return result;
+        return (long) ((value - startIntervalBound) / intervalRange);
     }
 }
@@ -0,0 +1,163 @@
+/*
+ * Copyright 2019 Centre for Computational Geography.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.leeds.ccg.projects.fg.core;
+
+import java.io.OutputStream;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.logging.Formatter;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+import java.util.logging.StreamHandler;
+
+/**
+ * Logging for the project. All loggers obtained from {@link #getLogger(Class)}
+ * are children of a project logger that writes warnings and errors, with the
+ * stack trace of any exception logged with them, to System.err and other
+ * messages to System.out. How much is logged is controlled by a verbosity:
+ * <ul>
+ * <li>{@link #QUIET} - only warnings and errors;</li>
+ * <li>{@link #NORMAL} - progress messages (the default);</li>
+ * <li>{@link #VERBOSE} - summary statistics for each input;</li>
+ * <li>{@link #DEBUG} - diagnostics for each row, value and interval.</li>
+ * </ul>
+ * The verbosity can be set with {@link #setVerbosity(int)} or with the system
+ * property "fg.verbosity". Messages for levels that are not logged should be
+ * built lazily, using a Supplier or a {@link Logger#isLoggable(Level)} check,
+ * so that they cost almost nothing in hot loops.
+ *
+ * @author Andy Turner
+ * @version 1.0.0
+ */
+public class FG_Log {
+
+    /**
+     * Only warnings and errors are logged.
+     */
+    public static final int QUIET = 0;
+
+    /**
+     * Progress messages are logged at {@link Level#INFO}.
+     */
+    public static final int NORMAL = 1;
+
+    /**
+     * Summary statistics are logged at {@link Level#FINE}.
+     */
+    public static final int VERBOSE = 2;
+
+    /**
+     * Row, value and interval diagnostics are logged at {@link Level#FINER}
+     * and {@link Level#FINEST}.
+     */
+    public static final int DEBUG = 3;
+
+    /**
+     * The name of the project logger.
+     */
+    public static final String NAME = "uk.ac.leeds.ccg.projects.fg";
+
+    private static final Logger LOGGER = Logger.getLogger(NAME);
+
+    static {
+        Formatter f = new Formatter() {
+            @Override
+            public String format(LogRecord r) {
+                String m = formatMessage(r);
+                if (r.getLevel().intValue() >= Level.WARNING.intValue()) {
+                    m = r.getLevel().getName() + ": " + m;
+                }
+                Throwable t = r.getThrown();
+                if (t == null) {
+                    return m + System.lineSeparator();
+                }
+                StringWriter sw = new StringWriter();
+                try (PrintWriter pw = new PrintWriter(sw)) {
+                    pw.println(m);
+                    t.printStackTrace(pw);
+                }
+                return sw.toString();
+            }
+        };
+        // Warnings and errors go to System.err and all else to System.out.
+        StreamHandler out = getHandler(System.out, f);
+        out.setLevel(Level.ALL);
+        out.setFilter(r -> r.getLevel().intValue() < Level.WARNING.intValue());
+        StreamHandler err = getHandler(System.err, f);
+        err.setLevel(Level.WARNING);
+        LOGGER.addHandler(out);
+        LOGGER.addHandler(err);
+        LOGGER.setUseParentHandlers(false);
+        int v = NORMAL;
+        String p = System.getProperty("fg.verbosity");
+        if (p != null) {
+            try {
+                v = Integer.parseInt(p.trim());
+            } catch (NumberFormatException e) {
+                LOGGER.warning("Ignoring fg.verbosity " + p);
+            }
+        }
+        setVerbosity(v);
+    }
+
+    private FG_Log() {
+    }
+
+    /**
+     * @param s The stream to write to.
+     * @param f The formatter.
+     * @return A handler that writes to s and flushes after each record.
+     */
+    private static StreamHandler getHandler(OutputStream s, Formatter f) {
+        return new StreamHandler(s, f) {
+            @Override
+            public synchronized void publish(LogRecord r) {
+                super.publish(r);
+                flush();
+            }
+        };
+    }
+
+    /**
+     * @param c The class to get a logger for.
+     * @return A logger for c.
+     */
+    public static Logger getLogger(Class<?> c) {
+        return Logger.getLogger(c.getName());
+    }
+
+    /**
+     * @param verbosity One of {@link #QUIET}, {@link #NORMAL},
+     * {@link #VERBOSE} or {@link #DEBUG}. Values above {@link #DEBUG} log
+     * everything.
+     */
+    public static void setVerbosity(int verbosity) {
+        Level l;
+        if (verbosity <= QUIET) {
+            l = Level.WARNING;
+        } else if (verbosity == NORMAL) {
+            l = Level.INFO;
+        } else if (verbosity == VERBOSE) {
+            l = Level.FINE;
+        } else if (verbosity == DEBUG) {
+            l = Level.FINEST;
+        } else {
+            l = Level.ALL;
+        }
+        LOGGER.setLevel(l);
+    }
+}
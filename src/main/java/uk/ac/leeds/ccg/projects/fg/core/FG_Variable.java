@@ -0,0 +1,122 @@
+/*
+ * Copyright 2019 Centre for Computational Geography.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.leeds.ccg.projects.fg.core;
+
+/**
+ * A description of a hydraulic variable in the cross section model output.
+ *
+ * @author Andy Turner
+ * @version 1.0.0
+ */
+public class FG_Variable {
+
+    /**
+     * Depth with thresholds 4, 6, 8, 10.
+     */
+    public static final FG_Variable DEPTH = new FG_Variable("depth",
+            "4", "6", "8", "10");
+
+    /**
+     * Velocity with thresholds 4, 6, 8, 10.
+     */
+    public static final FG_Variable VELOCITY = new FG_Variable("velocity",
+            "4", "6", "8", "10");
+
+    /**
+     * Shear stress with thresholds 200, 1000, 2500, 5000.
+     */
+    public static final FG_Variable SHEAR_STRESS = new FG_Variable(
+            "shear stress", "200", "1000", "2500", "5000");
+
+    /**
+     * Froude number with thresholds 0.8, 0.9, 1.0, 1.1.
+     */
+    public static final FG_Variable FROUDE = new FG_Variable("froude",
+            "0.8", "0.9", "1.0", "1.1");
+
+    /**
+     * The name used in input and output file and directory names.
+     */
+    public final String name;
+
+    /**
+     * Values which are regarded as no data.
+     */
+    public final double[] noDataValues;
+
+    /**
+     * The ascending thresholds for which the number of rows with values
+     * greater than the threshold are counted.
+     */
+    public final double[] thresholds;
+
+    /**
+     * The thresholds as they appear in output headers.
+     */
+    public final String[] thresholdLabels;
+
+    /**
+     * Creates a variable for which 0 and -999 are no data.
+     *
+     * @param name The name.
+     * @param thresholds The ascending thresholds as they appear in output
+     * headers.
+     */
+    public FG_Variable(String name, String... thresholds) {
+        this(name, new double[]{0, -999}, thresholds);
+    }
+
+    /**
+     * @param name The name.
+     * @param noDataValues Values which are regarded as no data.
+     * @param thresholds The ascending thresholds as they appear in output
+     * headers.
+     */
+    public FG_Variable(String name, double[] noDataValues,
+            String... thresholds) {
+        this.name = name;
+        this.noDataValues = noDataValues.clone();
+        this.thresholdLabels = thresholds.clone();
+        this.thresholds = new double[thresholds.length];
+        for (int i = 0; i < thresholds.length; i++) {
+            this.thresholds[i] = Double.parseDouble(thresholds[i]);
+            if (i > 0 && this.thresholds[i] < this.thresholds[i - 1]) {
+                throw new IllegalArgumentException("Thresholds must be "
+                        + "ascending");
+            }
+        }
+    }
+
+    /**
+     * @param v The value to test.
+     * @return {@code true} if v is one of the {@link #noDataValues}.
+     */
+    public boolean isNoData(double v) {
+        for (double nd : noDataValues) {
+            if (v == nd) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return The hydraulic variables in the model output.
+     */
+    public static FG_Variable[] getDefaults() {
+        return new FG_Variable[]{DEPTH, VELOCITY, SHEAR_STRESS, FROUDE};
+    }
+}
@@ -0,0 +1,300 @@
+/*
+ * Copyright 2019 Centre for Computational Geography.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.leeds.ccg.projects.fg.io;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * A base for readers of CSV files that parse lines byte by byte straight
+ * into primitives so that no String is created for each value. Subclasses
+ * define the layout of lines using {@link #peek()}, {@link #skipLine()},
+ * {@link #skipField()}, {@link #parseInt()} and {@link #parseValue()}.
+ *
+ * @author Andy Turner
+ * @version 1.0.0
+ */
+public class FG_CSVReader implements Closeable {
+
+    /**
+     * Powers of ten that are exactly representable as doubles.
+     */
+    private static final double[] POW10 = {1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6,
+        1e7, 1e8, 1e9, 1e10, 1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18,
+        1e19, 1e20, 1e21, 1e22};
+
+    /**
+     * The largest integer below which all integers are exact doubles.
+     */
+    private static final long MAX_EXACT = 1L << 53;
+
+    /**
+     * The file being read.
+     */
+    protected final Path file;
+
+    private final InputStream in;
+    private byte[] buf;
+
+    /**
+     * The position of the next byte in the buffer.
+     */
+    protected int pos;
+
+    private int mark;
+    private int lim;
+    private boolean eof;
+
+    /**
+     * The number of the current line, counting data lines from 1.
+     */
+    protected int lineNumber;
+
+    /**
+     * The number of digits read by the last call to {@link #parseInt()}. This
+     * is counted as the digits are read so it is correct even if the buffer
+     * is refilled part way through.
+     */
+    protected int digits;
+
+    /**
+     * Opens file.
+     *
+     * @param file The file to read.
+     * @throws IOException If encountered.
+     */
+    public FG_CSVReader(Path file) throws IOException {
+        this.file = file;
+        this.in = Files.newInputStream(file);
+        this.buf = new byte[1 << 16];
+        this.mark = -1;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    /**
+     * @return The next byte without consuming it, or -1 at the end of the
+     * file.
+     */
+    protected int peek() throws IOException {
+        if (pos == lim) {
+            if (eof) {
+                return -1;
+            }
+            int keep = 0;
+            if (mark >= 0) {
+                // Retain the bytes from mark for parseFallback.
+                keep = lim - mark;
+                if (keep == buf.length) {
+                    buf = Arrays.copyOf(buf, buf.length * 2);
+                } else {
+                    System.arraycopy(buf, mark, buf, 0, keep);
+                }
+                mark = 0;
+            }
+            int read = in.read(buf, keep, buf.length - keep);
+            pos = keep;
+            lim = keep;
+            if (read <= 0) {
+                eof = true;
+                return -1;
+            }
+            lim += read;
+        }
+        return buf[pos] & 0xFF;
+    }
+
+    /**
+     * Skips to the start of the next line.
+     */
+    protected void skipLine() throws IOException {
+        int b = peek();
+        while (b >= 0 && b != '\n' && b != '\r') {
+            pos++;
+            b = peek();
+        }
+        if (b == '\r') {
+            pos++;
+            b = peek();
+        }
+        if (b == '\n') {
+            pos++;
+        }
+    }
+
+    protected void skipSpaces() throws IOException {
+        int b = peek();
+        while (b == ' ' || b == '\t') {
+            pos++;
+            b = peek();
+        }
+    }
+
+    /**
+     * Parses an unsigned integer returning -1 if there are no digits. The
+     * number of digits read is set in {@link #digits}.
+     */
+    protected int parseInt() throws IOException {
+        int r = -1;
+        int n = 0;
+        int b = peek();
+        while (b >= '0' && b <= '9') {
+            r = (r < 0 ? 0 : r * 10) + (b - '0');
+            n++;
+            pos++;
+            b = peek();
+        }
+        digits = n;
+        return r;
+    }
+
+    /**
+     * Skips to the next comma or the end of the line. The comma is not
+     * consumed.
+     */
+    protected void skipField() throws IOException {
+        int b = peek();
+        while (b >= 0 && b != ',' && b != '\n' && b != '\r') {
+            pos++;
+            b = peek();
+        }
+    }
+
+    /**
+     * Parses a decimal value up to the next comma or end of line. Values with
+     * at most 18 significant digits, a mantissa no greater than 2^53 and a
+     * power of ten no greater than 22 in magnitude are converted
+     * arithmetically which gives the same correctly rounded result as
+     * {@link Double#parseDouble(String)}. Anything else, including a sign or
+     * point with no digits, falls back to {@link Double#parseDouble(String)}
+     * so is either parsed in the same way or is an error.
+     */
+    protected double parseValue() throws IOException {
+        skipSpaces();
+        int b = peek();
+        if (b == ',' || b == '\n' || b == '\r' || b < 0) {
+            return 0.0d;
+        }
+        mark = pos;
+        boolean negative = false;
+        if (b == '-' || b == '+') {
+            negative = b == '-';
+            pos++;
+            b = peek();
+        }
+        long m = 0;
+        // The number of significant digits in m
+        int significant = 0;
+        int exp = 0;
+        boolean exact = true;
+        boolean hasDigits = false;
+        while (b >= '0' && b <= '9') {
+            hasDigits = true;
+            if (significant < 18) {
+                m = m * 10 + (b - '0');
+                if (m != 0) {
+                    significant++;
+                }
+            } else {
+                exact = false;
+            }
+            pos++;
+            b = peek();
+        }
+        if (b == '.') {
+            pos++;
+            b = peek();
+            while (b >= '0' && b <= '9') {
+                hasDigits = true;
+                if (significant < 18) {
+                    m = m * 10 + (b - '0');
+                    if (m != 0) {
+                        significant++;
+                    }
+                    exp--;
+                } else if (b != '0') {
+                    exact = false;
+                }
+                pos++;
+                b = peek();
+            }
+        }
+        if (!hasDigits) {
+            exact = false;
+        }
+        if (b == 'e' || b == 'E') {
+            pos++;
+            b = peek();
+            boolean negativeExp = false;
+            if (b == '-' || b == '+') {
+                negativeExp = b == '-';
+                pos++;
+            }
+            int e = parseInt();
+            // More than 9 digits may overflow.
+            if (e < 0 || digits > 9) {
+                exact = false;
+            } else {
+                exp += negativeExp ? -e : e;
+            }
+            b = peek();
+        }
+        skipSpaces();
+        b = peek();
+        if (!exact || m > MAX_EXACT || exp < -22 || exp > 22
+                || (b != ',' && b != '\n' && b != '\r' && b >= 0)) {
+            return parseFallback();
+        }
+        mark = -1;
+        double r = (double) m;
+        if (exp < 0) {
+            r /= POW10[-exp];
+        } else {
+            r *= POW10[exp];
+        }
+        return negative ? -r : r;
+    }
+
+    /**
+     * Parses the value from mark to the next comma or end of line using
+     * {@link Double#parseDouble(String)}. This creates a String and is only
+     * used for values the fast path cannot handle exactly.
+     */
+    protected double parseFallback() throws IOException {
+        int b = peek();
+        while (b >= 0 && b != ',' && b != '\n' && b != '\r') {
+            pos++;
+            b = peek();
+        }
+        String s = new String(buf, mark, pos - mark,
+                StandardCharsets.US_ASCII).trim();
+        mark = -1;
+        try {
+            return Double.parseDouble(s);
+        } catch (NumberFormatException e) {
+            throw new IOException("Unable to parse \"" + s + "\" on line "
+                    + lineNumber + " of " + file, e);
+        }
+    }
+}
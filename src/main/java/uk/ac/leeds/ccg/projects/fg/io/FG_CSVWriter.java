@@ -0,0 +1,300 @@
+/*
+ * Copyright 2019 Centre for Computational Geography.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.leeds.ccg.projects.fg.io;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * For writing CSV files. Each line is built up a field at a time in a
+ * reusable StringBuilder. Numbers are appended directly so they are formatted
+ * as by {@link Double#toString(double)} and {@link Long#toString(long)}
+ * without creating a String. Completed lines are encoded into a byte buffer
+ * which is written out through a FileChannel when full.
+ *
+ * Lines can also be echoed to System.out. This is off by default.
+ *
+ * @author Andy Turner
+ * @version 1.0.0
+ */
+public class FG_CSVWriter implements Closeable, Flushable {
+
+    /**
+     * The default buffer size in bytes. This suits the many small files
+     * written and keeps the cost of creating a writer low.
+     */
+    public static final int DEFAULT_BUFFER_SIZE = 1 << 14;
+
+    /**
+     * The minimum buffer size in bytes, which is enough for any encoded
+     * character.
+     */
+    public static final int MIN_BUFFER_SIZE = 4;
+
+    /**
+     * The line separator, which is the same as that used by PrintWriter.
+     */
+    private static final String EOL = System.lineSeparator();
+
+    private final FileChannel fc;
+    private final byte[] buf;
+    private final ByteBuffer bb;
+    private int pos;
+
+    /**
+     * The line being built.
+     */
+    private final StringBuilder line;
+
+    /**
+     * Whether the current line has a field.
+     */
+    private boolean hasField;
+
+    /**
+     * Whether lines are echoed to System.out.
+     */
+    private boolean echo;
+
+    /**
+     * Creates a writer that writes to file replacing any existing content.
+     *
+     * @param file The file to write to.
+     * @throws IOException If encountered.
+     */
+    public FG_CSVWriter(Path file) throws IOException {
+        this(file, false);
+    }
+
+    /**
+     * Creates a writer that writes to file replacing any existing content.
+     *
+     * @param file The file to write to.
+     * @param echo If true lines are also written to System.out.
+     * @throws IOException If encountered.
+     */
+    public FG_CSVWriter(Path file, boolean echo) throws IOException {
+        this(file, echo, DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * Creates a writer that writes to file replacing any existing content. A
+     * larger buffer than {@link #DEFAULT_BUFFER_SIZE} may be worthwhile for
+     * large files.
+     *
+     * @param file The file to write to.
+     * @param echo If true lines are also written to System.out.
+     * @param bufferSize The buffer size in bytes.
+     * @throws IOException If encountered.
+     * @throws IllegalArgumentException If bufferSize is less than
+     * {@link #MIN_BUFFER_SIZE}.
+     */
+    public FG_CSVWriter(Path file, boolean echo, int bufferSize)
+            throws IOException {
+        if (bufferSize < MIN_BUFFER_SIZE) {
+            throw new IllegalArgumentException("bufferSize " + bufferSize
+                    + " < " + MIN_BUFFER_SIZE);
+        }
+        this.fc = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.WRITE);
+        this.buf = new byte[bufferSize];
+        this.bb = ByteBuffer.wrap(buf);
+        this.line = new StringBuilder(256);
+        this.echo = echo;
+    }
+
+    /**
+     * @param echo If true lines are also written to System.out.
+     */
+    public void setEcho(boolean echo) {
+        this.echo = echo;
+    }
+
+    /**
+     * Starts a new field in the current line adding a separator if needed.
+     * This allows for values to be appended in custom formats.
+     *
+     * @return The StringBuilder to append the field value to.
+     */
+    public StringBuilder field() {
+        if (hasField) {
+            line.append(',');
+        }
+        hasField = true;
+        return line;
+    }
+
+    /**
+     * @param v The value to add as the next field.
+     * @return this
+     */
+    public FG_CSVWriter add(double v) {
+        field().append(v);
+        return this;
+    }
+
+    /**
+     * @param v The value to add as the next field.
+     * @return this
+     */
+    public FG_CSVWriter add(long v) {
+        field().append(v);
+        return this;
+    }
+
+    /**
+     * @param v The value to add as the next field.
+     * @return this
+     */
+    public FG_CSVWriter add(int v) {
+        field().append(v);
+        return this;
+    }
+
+    /**
+     * @param v The value to add as the next field.
+     * @return this
+     */
+    public FG_CSVWriter add(CharSequence v) {
+        field().append(v);
+        return this;
+    }
+
+    /**
+     * Adds v as the next field. Doubles, Floats, Longs and Integers are
+     * appended as primitives, anything else is appended as
+     * {@link String#valueOf(Object)}.
+     *
+     * @param v The value to add as the next field.
+     * @return this
+     */
+    public FG_CSVWriter add(Object v) {
+        StringBuilder sb = field();
+        if (v instanceof Double) {
+            sb.append(((Double) v).doubleValue());
+        } else if (v instanceof Long) {
+            sb.append(((Long) v).longValue());
+        } else if (v instanceof Integer) {
+            sb.append(((Integer) v).intValue());
+        } else if (v instanceof Float) {
+            sb.append(((Float) v).floatValue());
+        } else {
+            sb.append(v);
+        }
+        return this;
+    }
+
+    /**
+     * Ends the current line.
+     *
+     * @throws IOException If encountered.
+     */
+    public void endLine() throws IOException {
+        line.append(EOL);
+        if (echo) {
+            System.out.append(line);
+        }
+        encode(line);
+        line.setLength(0);
+        hasField = false;
+    }
+
+    /**
+     * Writes s as a complete line.
+     *
+     * @param s The line to write.
+     * @throws IOException If encountered.
+     */
+    public void writeLine(CharSequence s) throws IOException {
+        field().append(s);
+        endLine();
+    }
+
+    /**
+     * Encodes s as UTF-8 into the buffer.
+     */
+    private void encode(CharSequence s) throws IOException {
+        int n = s.length();
+        for (int i = 0; i < n; i++) {
+            if (buf.length - pos < 4) {
+                flushBuffer();
+            }
+            char c = s.charAt(i);
+            if (c < 0x80) {
+                buf[pos++] = (byte) c;
+            } else if (c < 0x800) {
+                buf[pos++] = (byte) (0xC0 | (c >> 6));
+                buf[pos++] = (byte) (0x80 | (c & 0x3F));
+            } else if (Character.isHighSurrogate(c) && i + 1 < n
+                    && Character.isLowSurrogate(s.charAt(i + 1))) {
+                int cp = Character.toCodePoint(c, s.charAt(++i));
+                buf[pos++] = (byte) (0xF0 | (cp >> 18));
+                buf[pos++] = (byte) (0x80 | ((cp >> 12) & 0x3F));
+                buf[pos++] = (byte) (0x80 | ((cp >> 6) & 0x3F));
+                buf[pos++] = (byte) (0x80 | (cp & 0x3F));
+            } else {
+                buf[pos++] = (byte) (0xE0 | (c >> 12));
+                buf[pos++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                buf[pos++] = (byte) (0x80 | (c & 0x3F));
+            }
+        }
+    }
+
+    private void flushBuffer() throws IOException {
+        bb.clear().limit(pos);
+        while (bb.hasRemaining()) {
+            fc.write(bb);
+        }
+        pos = 0;
+    }
+
+    /**
+     * Writes out any complete lines that are buffered.
+     *
+     * @throws IOException If encountered.
+     */
+    @Override
+    public void flush() throws IOException {
+        flushBuffer();
+        if (echo) {
+            System.out.flush();
+        }
+    }
+
+    /**
+     * Ends any incomplete line, writes out all buffered lines and closes the
+     * file.
+     *
+     * @throws IOException If encountered.
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            if (hasField) {
+                endLine();
+            }
+            flushBuffer();
+        } finally {
+            fc.close();
+        }
+    }
+}
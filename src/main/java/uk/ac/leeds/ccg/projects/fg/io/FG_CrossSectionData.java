@@ -0,0 +1,65 @@
+/*
+ * Copyright 2019 Centre for Computational Geography.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.leeds.ccg.projects.fg.io;
+
+/**
+ * A time series of cross section values held in a dense row major matrix.
+ * Row r holds the values for times[r] and the value for column c of row r is
+ * values[(r * nCols) + c].
+ *
+ * @author Andy Turner
+ * @version 1.0.0
+ */
+public class FG_CrossSectionData {
+
+    /**
+     * The number of rows (times).
+     */
+    public final int nRows;
+
+    /**
+     * The number of columns (cross section locations).
+     */
+    public final int nCols;
+
+    /**
+     * The time of each row as an epoch minute (see {@link FG_Time}).
+     */
+    public final long[] times;
+
+    /**
+     * The values in row major order. The length may be greater than
+     * nRows * nCols.
+     */
+    public final double[] values;
+
+    public FG_CrossSectionData(int nRows, int nCols, long[] times,
+            double[] values) {
+        this.nRows = nRows;
+        this.nCols = nCols;
+        this.times = times;
+        this.values = values;
+    }
+
+    /**
+     * @param row The row index.
+     * @param col The column index.
+     * @return The value at row, col.
+     */
+    public double getValue(int row, int col) {
+        return values[row * nCols + col];
+    }
+}
@@ -0,0 +1,214 @@
+/*
+ * Copyright 2019 Centre for Computational Geography.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.leeds.ccg.projects.fg.io;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * A reader for cross section time series CSV files. The first line of a file
+ * is a header. Each subsequent line is a time in the form "date HH:MM"
+ * followed by comma separated values, one for each cross section column. The
+ * date may be given as day/month/year or as year-month-day.
+ *
+ * Lines are parsed byte by byte straight into primitives so that no String is
+ * created for each value. Use {@link #next()} to read one row at a time, or
+ * {@link #read(Path)} to read a whole file into a {@link FG_CrossSectionData}.
+ * Empty values are read as 0 which is treated as no data in the processing.
+ *
+ * @author Andy Turner
+ * @version 1.0.0
+ */
+public class FG_CrossSectionReader extends FG_CSVReader {
+
+    /**
+     * For storing the fields of a date.
+     */
+    private final int[] dateFields;
+
+    /**
+     * The number of columns. This is set from the first data row.
+     */
+    private int nCols;
+
+    /**
+     * The time of the last row read as an epoch minute.
+     */
+    public long time;
+
+    /**
+     * The values of the last row read. This array is reused for each row.
+     */
+    public double[] row;
+
+    /**
+     * Opens file and skips the header line.
+     *
+     * @param file The file to read.
+     * @throws IOException If encountered.
+     */
+    public FG_CrossSectionReader(Path file) throws IOException {
+        super(file);
+        this.dateFields = new int[3];
+        this.row = new double[64];
+        this.nCols = -1;
+        skipLine();
+    }
+
+    /**
+     * @return The number of columns, or -1 if no row has been read yet.
+     */
+    public int getNCols() {
+        return nCols;
+    }
+
+    /**
+     * Reads the next row setting {@link #time} and the first
+     * {@link #getNCols()} values of {@link #row}. Blank lines are skipped.
+     *
+     * @return {@code true} if a row was read and {@code false} at the end of
+     * the file.
+     * @throws IOException If encountered or if the line is malformed.
+     */
+    public boolean next() throws IOException {
+        int b = peek();
+        while (b == '\n' || b == '\r') {
+            skipLine();
+            b = peek();
+        }
+        if (b < 0) {
+            return false;
+        }
+        lineNumber++;
+        time = parseTime();
+        int col = 0;
+        b = peek();
+        while (b == ',') {
+            pos++;
+            if (col == row.length) {
+                if (nCols >= 0) {
+                    throw new IOException("Line " + lineNumber + " of " + file
+                            + " has more than " + nCols + " values");
+                }
+                row = Arrays.copyOf(row, row.length * 2);
+            }
+            row[col] = parseValue();
+            col++;
+            b = peek();
+        }
+        skipLine();
+        if (nCols < 0) {
+            nCols = col;
+            if (row.length != nCols) {
+                row = Arrays.copyOf(row, nCols);
+            }
+        } else if (col > nCols) {
+            throw new IOException("Line " + lineNumber + " of " + file
+                    + " has " + col + " values, expecting " + nCols);
+        } else {
+            Arrays.fill(row, col, nCols, 0.0d);
+        }
+        return true;
+    }
+
+    /**
+     * Reads all the rows of file into a dense matrix.
+     *
+     * @param file The file to read.
+     * @return The data read.
+     * @throws IOException If encountered.
+     */
+    public static FG_CrossSectionData read(Path file) throws IOException {
+        try (FG_CrossSectionReader r = new FG_CrossSectionReader(file)) {
+            long[] times = new long[256];
+            double[] values = null;
+            int nRows = 0;
+            int nCols = 0;
+            while (r.next()) {
+                if (values == null) {
+                    nCols = r.getNCols();
+                    values = new double[times.length * nCols];
+                }
+                if (nRows == times.length) {
+                    times = Arrays.copyOf(times, nRows * 2);
+                    values = Arrays.copyOf(values, nRows * 2 * nCols);
+                }
+                times[nRows] = r.time;
+                System.arraycopy(r.row, 0, values, nRows * nCols, nCols);
+                nRows++;
+            }
+            if (values == null) {
+                values = new double[0];
+            }
+            return new FG_CrossSectionData(nRows, nCols, times, values);
+        }
+    }
+
+    /**
+     * Parses a time of the form "date HH:MM" where date is day/month/year or
+     * year-month-day. Seconds, if present, are ignored. If there is no date
+     * the time is taken to be on 1970-01-01.
+     */
+    private long parseTime() throws IOException {
+        skipSpaces();
+        int[] f = dateFields;
+        int nf = 0;
+        int b;
+        f[nf++] = parseInt();
+        int firstDigits = digits;
+        b = peek();
+        long epochDay = 0;
+        if (b == '/' || b == '-' || b == '.') {
+            while ((b == '/' || b == '-' || b == '.') && nf < 3) {
+                pos++;
+                f[nf++] = parseInt();
+                b = peek();
+            }
+            if (nf != 3 || f[0] < 0 || f[1] < 0 || f[2] < 0) {
+                throw new IOException("Unable to parse date on line "
+                        + lineNumber + " of " + file);
+            }
+            if (firstDigits == 4) {
+                epochDay = FG_Time.toEpochDay(f[0], f[1], f[2]);
+            } else {
+                int year = f[2] < 100 ? f[2] + 2000 : f[2];
+                epochDay = FG_Time.toEpochDay(year, f[1], f[0]);
+            }
+            skipSpaces();
+            f[0] = parseInt();
+            b = peek();
+        }
+        int hour = f[0];
+        int minute = 0;
+        if (b == ':') {
+            pos++;
+            minute = parseInt();
+            b = peek();
+            if (b == ':') {
+                pos++;
+                parseInt();
+            }
+        }
+        if (hour < 0 || minute < 0) {
+            throw new IOException("Unable to parse time on line "
+                    + lineNumber + " of " + file);
+        }
+        skipSpaces();
+        return epochDay * FG_Time.MINUTES_PER_DAY + hour * 60 + minute;
+    }
+
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright 2019 Centre for Computational Geography.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.leeds.ccg.projects.fg.io;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import uk.ac.leeds.ccg.chart.data.Data_BiBigDecimal;
+import uk.ac.leeds.ccg.projects.fg.stats.FG_PolynomialSums;
+
+/**
+ * The slope area points of a glacier held in growable primitive arrays. For
+ * point i, x[i] is log10(slope) and y[i] is log10(upstream accumulation
+ * area). The extents of the points are updated as points are added. As they
+ * always have been, the maxima start at 0 and the minima at
+ * {@link Double#MAX_VALUE} so the extents always include 0 in the plots.
+ * The power sums for least squares polynomial fits are also accumulated as
+ * points are added.
+ *
+ * @author Andy Turner
+ * @version 1.0.0
+ */
+public class FG_GlacierSeries {
+
+    /**
+     * The default maximum degree of polynomial that can be fitted from
+     * {@link #sums}.
+     */
+    public static final int DEFAULT_MAX_DEGREE = 2;
+
+    /**
+     * The glacier ID.
+     */
+    public final int id;
+
+    /**
+     * The number of points.
+     */
+    public int n;
+
+    /**
+     * The x values. The length may be greater than n.
+     */
+    public double[] x;
+
+    /**
+     * The y values. The length may be greater than n.
+     */
+    public double[] y;
+
+    public double minX = Double.MAX_VALUE;
+    public double maxX = 0.0d;
+    public double minY = Double.MAX_VALUE;
+    public double maxY = 0.0d;
+
+    /**
+     * The power sums of the points for least squares polynomial fits.
+     */
+    public final FG_PolynomialSums sums;
+
+    /**
+     * @param id The glacier ID.
+     */
+    public FG_GlacierSeries(int id) {
+        this(id, DEFAULT_MAX_DEGREE);
+    }
+
+    /**
+     * @param id The glacier ID.
+     * @param maxDegree The maximum degree of polynomial that can be fitted
+     * from {@link #sums}.
+     */
+    public FG_GlacierSeries(int id, int maxDegree) {
+        this.id = id;
+        this.x = new double[16];
+        this.y = new double[16];
+        this.sums = new FG_PolynomialSums(maxDegree);
+    }
+
+    /**
+     * Adds a point.
+     *
+     * @param px The x value.
+     * @param py The y value.
+     */
+    public void add(double px, double py) {
+        if (n == x.length) {
+            x = Arrays.copyOf(x, n * 2);
+            y = Arrays.copyOf(y, n * 2);
+        }
+        x[n] = px;
+        y[n] = py;
+        n++;
+        minX = Math.min(minX, px);
+        maxX = Math.max(maxX, px);
+        minY = Math.min(minY, py);
+        maxY = Math.max(maxY, py);
+        sums.add(px, py);
+    }
+
+    /**
+     * @return The points and extents in the form used for charting: a list
+     * of the points followed by the maximum and minimum x and the maximum and
+     * minimum y.
+     */
+    public Object[] toData() {
+        ArrayList<Data_BiBigDecimal> xy = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            xy.add(new Data_BiBigDecimal(BigDecimal.valueOf(x[i]),
+                    BigDecimal.valueOf(y[i])));
+        }
+        return new Object[]{xy, BigDecimal.valueOf(maxX),
+            BigDecimal.valueOf(minX), BigDecimal.valueOf(maxY),
+            BigDecimal.valueOf(minY)};
+    }
+}
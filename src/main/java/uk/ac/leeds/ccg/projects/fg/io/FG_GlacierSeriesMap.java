@@ -0,0 +1,182 @@
+/*
+ * Copyright 2019 Centre for Computational Geography.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.leeds.ccg.projects.fg.io;
+
+import java.util.Arrays;
+
+/**
+ * A map from glacier ID to {@link FG_GlacierSeries}. The IDs and series are
+ * held in arrays in an open addressing hash table with linear probing in the
+ * same way as {@link uk.ac.leeds.ccg.projects.fg.stats.FG_LongHistogram}, so
+ * IDs are not boxed. For iterating in ID order use {@link #getIDs()} or
+ * {@link #toArray()}.
+ *
+ * @author Andy Turner
+ * @version 1.0.0
+ */
+public class FG_GlacierSeriesMap {
+
+    /**
+     * The default initial capacity.
+     */
+    public static final int DEFAULT_CAPACITY = 1 << 6;
+
+    /**
+     * The IDs.
+     */
+    private int[] keys;
+
+    /**
+     * The series. A slot is empty if its series is null.
+     */
+    private FG_GlacierSeries[] values;
+
+    /**
+     * For calculating the slot for a key, 32 less the log base 2 of the
+     * table length.
+     */
+    private int shift;
+
+    /**
+     * The number of series.
+     */
+    private int size;
+
+    /**
+     * The maximum degree of polynomial that can be fitted from the sums of
+     * the series created.
+     */
+    public final int maxDegree;
+
+    public FG_GlacierSeriesMap() {
+        this(DEFAULT_CAPACITY, FG_GlacierSeries.DEFAULT_MAX_DEGREE);
+    }
+
+    /**
+     * @param capacity The number of glaciers expected.
+     * @param maxDegree The maximum degree of polynomial that can be fitted
+     * from the sums of the series created.
+     */
+    public FG_GlacierSeriesMap(int capacity, int maxDegree) {
+        this.maxDegree = maxDegree;
+        init(Integer.highestOneBit(Math.max(4, capacity) * 2 - 1) << 1);
+    }
+
+    private void init(int n) {
+        keys = new int[n];
+        values = new FG_GlacierSeries[n];
+        shift = 32 - Integer.numberOfTrailingZeros(n);
+    }
+
+    private int slot(int key) {
+        return (key * 0x9E3779B9) >>> shift;
+    }
+
+    /**
+     * @param id The glacier ID.
+     * @return The series for id or null if there is none.
+     */
+    public FG_GlacierSeries get(int id) {
+        int mask = keys.length - 1;
+        int i = slot(id);
+        while (values[i] != null) {
+            if (keys[i] == id) {
+                return values[i];
+            }
+            i = (i + 1) & mask;
+        }
+        return null;
+    }
+
+    /**
+     * @param id The glacier ID.
+     * @return The series for id which is created and added if there is none.
+     */
+    public FG_GlacierSeries getOrCreate(int id) {
+        int mask = keys.length - 1;
+        int i = slot(id);
+        while (values[i] != null) {
+            if (keys[i] == id) {
+                return values[i];
+            }
+            i = (i + 1) & mask;
+        }
+        FG_GlacierSeries r = new FG_GlacierSeries(id, maxDegree);
+        keys[i] = id;
+        values[i] = r;
+        size++;
+        if (size * 2 > keys.length) {
+            grow();
+        }
+        return r;
+    }
+
+    private void grow() {
+        int[] oldKeys = keys;
+        FG_GlacierSeries[] oldValues = values;
+        init(keys.length * 2);
+        int mask = keys.length - 1;
+        for (int j = 0; j < oldKeys.length; j++) {
+            if (oldValues[j] != null) {
+                int i = slot(oldKeys[j]);
+                while (values[i] != null) {
+                    i = (i + 1) & mask;
+                }
+                keys[i] = oldKeys[j];
+                values[i] = oldValues[j];
+            }
+        }
+    }
+
+    /**
+     * @return The number of series.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return A new array of the IDs in ascending order.
+     */
+    public int[] getIDs() {
+        int[] r = new int[size];
+        int k = 0;
+        for (int j = 0; j < keys.length; j++) {
+            if (values[j] != null) {
+                r[k] = keys[j];
+                k++;
+            }
+        }
+        Arrays.sort(r);
+        return r;
+    }
+
+    /**
+     * @return A new array of the series in ascending ID order.
+     */
+    public FG_GlacierSeries[] toArray() {
+        FG_GlacierSeries[] r = new FG_GlacierSeries[size];
+        int k = 0;
+        for (int j = 0; j < keys.length; j++) {
+            if (values[j] != null) {
+                r[k] = values[j];
+                k++;
+            }
+        }
+        Arrays.sort(r, (a, b) -> Integer.compare(a.id, b.id));
+        return r;
+    }
+}
@@ -0,0 +1,336 @@
+/*
+ * Copyright 2019 Centre for Computational Geography.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.leeds.ccg.projects.fg.io;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+import uk.ac.leeds.ccg.projects.fg.core.FG_Log;
+
+/**
+ * A binary cache of a grid that is read from a text file. The cache is kept
+ * alongside the source file with {@link #SUFFIX} appended to its name. It
+ * has a header followed by the cell values as little-endian doubles in row
+ * major order. The header records the size and last modified time of the
+ * source, the dimensions and no data value of the grid, summary statistics
+ * of the grid, and a CRC32 checksum of all of these. A cache is only used if
+ * the checksum is valid and the source has the same size and last modified
+ * time, otherwise it is ignored and can be rebuilt.
+ *
+ * Cell values are read through {@link java.nio.MappedByteBuffer}s of bands of rows,
+ * so reading a cache involves no parsing and no copying into the heap.
+ *
+ * @author Andy Turner
+ * @version 1.0.0
+ */
+public class FG_GridCache {
+
+    private static final Logger LOG = FG_Log.getLogger(FG_GridCache.class);
+
+    /**
+     * The suffix appended to the source file name to give the cache file
+     * name.
+     */
+    public static final String SUFFIX = ".fgc";
+
+    /**
+     * "FGGC" in ASCII.
+     */
+    private static final int MAGIC = 0x46474743;
+
+    private static final int VERSION = 1;
+
+    /**
+     * The number of header bytes covered by the checksum.
+     */
+    private static final int CHECKED_SIZE = 96;
+
+    /**
+     * The size of the header in bytes. Cell values start here so that they
+     * are aligned.
+     */
+    public static final int HEADER_SIZE = 128;
+
+    /**
+     * The size in bytes of the buffer used to write cell values.
+     */
+    private static final int BUFFER_SIZE = 1 << 18;
+
+    /**
+     * The number of rows.
+     */
+    public final long nRows;
+
+    /**
+     * The number of columns.
+     */
+    public final long nCols;
+
+    /**
+     * The no data value.
+     */
+    public final double noDataValue;
+
+    /**
+     * The number of values that are not the no data value.
+     */
+    public long n;
+
+    /**
+     * The minimum value.
+     */
+    public double min;
+
+    /**
+     * The maximum value.
+     */
+    public double max;
+
+    /**
+     * The mean.
+     */
+    public double mean;
+
+    /**
+     * The standard deviation.
+     */
+    public double standardDeviation;
+
+    /**
+     * The sum.
+     */
+    public double sum;
+
+    /**
+     * The cache file. This is null until the cache is read or written.
+     */
+    private Path file;
+
+    /**
+     * @param nRows The number of rows.
+     * @param nCols The number of columns.
+     * @param noDataValue The no data value.
+     */
+    public FG_GridCache(long nRows, long nCols, double noDataValue) {
+        this.nRows = nRows;
+        this.nCols = nCols;
+        this.noDataValue = noDataValue;
+    }
+
+    /**
+     * @param source The source file.
+     * @return The path of the cache for source.
+     */
+    public static Path getPath(Path source) {
+        return source.resolveSibling(source.getFileName() + SUFFIX);
+    }
+
+    /**
+     * Reads the header of the cache for source.
+     *
+     * @param source The source file.
+     * @return The cache or null if there is no valid cache for source.
+     * @throws IOException If encountered.
+     */
+    public static FG_GridCache read(Path source) throws IOException {
+        Path f = getPath(source);
+        BasicFileAttributes a = Files.readAttributes(source,
+                BasicFileAttributes.class);
+        ByteBuffer h = ByteBuffer.allocate(HEADER_SIZE)
+                .order(ByteOrder.LITTLE_ENDIAN);
+        long size;
+        try (FileChannel fc = FileChannel.open(f, StandardOpenOption.READ)) {
+            size = fc.size();
+            int read = 0;
+            while (h.hasRemaining() && read >= 0) {
+                read = fc.read(h);
+            }
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+        if (h.hasRemaining()) {
+            return ignore(f, "it is truncated");
+        }
+        CRC32 crc = new CRC32();
+        crc.update(h.array(), 0, CHECKED_SIZE);
+        h.flip();
+        if (h.getInt() != MAGIC || h.getInt() != VERSION) {
+            return ignore(f, "it is not a version " + VERSION + " cache");
+        }
+        if (h.getLong(CHECKED_SIZE) != crc.getValue()) {
+            return ignore(f, "the checksum is wrong");
+        }
+        if (h.getLong() != a.size()
+                || h.getLong() != a.lastModifiedTime().toMillis()) {
+            return ignore(f, "the source has changed");
+        }
+        FG_GridCache r = new FG_GridCache(h.getLong(), h.getLong(),
+                h.getDouble());
+        r.n = h.getLong();
+        r.min = h.getDouble();
+        r.max = h.getDouble();
+        r.mean = h.getDouble();
+        r.standardDeviation = h.getDouble();
+        r.sum = h.getDouble();
+        if (size != HEADER_SIZE + r.nRows * r.nCols * Double.BYTES) {
+            return ignore(f, "it is the wrong size");
+        }
+        r.file = f;
+        return r;
+    }
+
+    private static FG_GridCache ignore(Path f, String reason) {
+        LOG.fine(() -> "Ignoring " + f + " as " + reason);
+        return null;
+    }
+
+    /**
+     * Maps a band of rows of the cache. The mapping remains valid until it
+     * is garbage collected.
+     *
+     * @param startRow The first row of the band.
+     * @param bandRows The number of rows in the band.
+     * @return The values of the cells in the band in row major order.
+     * @throws IOException If encountered.
+     */
+    public DoubleBuffer getRows(long startRow, int bandRows)
+            throws IOException {
+        try (FileChannel fc = FileChannel.open(file, StandardOpenOption.READ)) {
+            return fc.map(FileChannel.MapMode.READ_ONLY,
+                    HEADER_SIZE + startRow * nCols * Double.BYTES,
+                    bandRows * nCols * Double.BYTES)
+                    .order(ByteOrder.LITTLE_ENDIAN).asDoubleBuffer();
+        }
+    }
+
+    /**
+     * Starts writing this as the cache for source. Values are added with
+     * {@link Writer#add(double[], int)} and the cache is only put in place
+     * by {@link Writer#commit()}, so an incomplete cache is never read.
+     *
+     * @param source The source file.
+     * @return A writer for the cell values.
+     * @throws IOException If encountered.
+     */
+    public Writer write(Path source) throws IOException {
+        return new Writer(source);
+    }
+
+    /**
+     * For writing the cell values of a cache.
+     */
+    public class Writer implements Closeable {
+
+        private final Path target;
+        private final Path tmp;
+        private final FileChannel fc;
+        private final ByteBuffer bb;
+        private long nValues;
+
+        private Writer(Path source) throws IOException {
+            BasicFileAttributes a = Files.readAttributes(source,
+                    BasicFileAttributes.class);
+            target = getPath(source);
+            tmp = Files.createTempFile(target.getParent(),
+                    target.getFileName().toString(), ".tmp");
+            fc = FileChannel.open(tmp, StandardOpenOption.WRITE);
+            bb = ByteBuffer.allocate(BUFFER_SIZE)
+                    .order(ByteOrder.LITTLE_ENDIAN);
+            bb.putInt(MAGIC).putInt(VERSION).putLong(a.size())
+                    .putLong(a.lastModifiedTime().toMillis()).putLong(nRows)
+                    .putLong(nCols).putDouble(noDataValue).putLong(n)
+                    .putDouble(min).putDouble(max).putDouble(mean)
+                    .putDouble(standardDeviation).putDouble(sum);
+            CRC32 crc = new CRC32();
+            crc.update(bb.array(), 0, CHECKED_SIZE);
+            bb.putLong(crc.getValue());
+            bb.position(HEADER_SIZE);
+        }
+
+        /**
+         * Adds the next values in row major order.
+         *
+         * @param values The values.
+         * @param length The number of values to add from the start of values.
+         * @throws IOException If encountered.
+         */
+        public void add(double[] values, int length) throws IOException {
+            for (int i = 0; i < length; i++) {
+                if (!bb.hasRemaining()) {
+                    flush();
+                }
+                bb.putDouble(values[i]);
+            }
+            nValues += length;
+        }
+
+        private void flush() throws IOException {
+            bb.flip();
+            while (bb.hasRemaining()) {
+                fc.write(bb);
+            }
+            bb.clear();
+        }
+
+        /**
+         * Writes out and puts the cache in place.
+         *
+         * @return The cache.
+         * @throws IOException If not all values were added or if encountered.
+         */
+        public FG_GridCache commit() throws IOException {
+            if (nValues != nRows * nCols) {
+                throw new IOException("Expecting " + (nRows * nCols)
+                        + " values not " + nValues);
+            }
+            flush();
+            fc.force(false);
+            fc.close();
+            try {
+                Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING,
+                        StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+            file = target;
+            return FG_GridCache.this;
+        }
+
+        /**
+         * Closes and deletes the temporary file if the cache was not
+         * committed.
+         *
+         * @throws IOException If encountered.
+         */
+        @Override
+        public void close() throws IOException {
+            fc.close();
+            Files.deleteIfExists(tmp);
+        }
+    }
+}
@@ -0,0 +1,164 @@
+/*
+ * Copyright 2019 Centre for Computational Geography.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.leeds.ccg.projects.fg.io;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * A reader for slope area CSV exports. The first line of a file is a header.
+ * Each subsequent line has a glacier ID, a slope and an upstream
+ * accumulation area in given fields amongst others. Values are parsed byte
+ * by byte straight into doubles and other fields are skipped without being
+ * parsed.
+ *
+ * @author Andy Turner
+ * @version 1.0.0
+ */
+public class FG_SlopeAreaReader extends FG_CSVReader {
+
+    private final int idField;
+    private final int slopeField;
+    private final int areaField;
+    private final int lastField;
+
+    /**
+     * The glacier ID of the last line read.
+     */
+    public int id;
+
+    /**
+     * The slope of the last line read.
+     */
+    public double slope;
+
+    /**
+     * The area of the last line read.
+     */
+    public double area;
+
+    /**
+     * Opens file and skips the header line.
+     *
+     * @param file The file to read.
+     * @param idField The index of the glacier ID field. IDs may be given as
+     * decimals in which case they are truncated.
+     * @param slopeField The index of the slope field.
+     * @param areaField The index of the area field.
+     * @throws IOException If encountered.
+     */
+    public FG_SlopeAreaReader(Path file, int idField, int slopeField,
+            int areaField) throws IOException {
+        super(file);
+        this.idField = idField;
+        this.slopeField = slopeField;
+        this.areaField = areaField;
+        this.lastField = Math.max(idField, Math.max(slopeField, areaField));
+        skipLine();
+    }
+
+    /**
+     * Reads the next line setting {@link #id}, {@link #slope} and
+     * {@link #area}. Blank lines are skipped.
+     *
+     * @return {@code true} if a line was read and {@code false} at the end of
+     * the file.
+     * @throws IOException If encountered or if the line has too few fields.
+     */
+    public boolean next() throws IOException {
+        int b = peek();
+        while (b == '\n' || b == '\r') {
+            skipLine();
+            b = peek();
+        }
+        if (b < 0) {
+            return false;
+        }
+        lineNumber++;
+        for (int field = 0; field <= lastField; field++) {
+            if (field > 0) {
+                if (peek() != ',') {
+                    throw new IOException("Line " + lineNumber + " of " + file
+                            + " has only " + field + " fields");
+                }
+                pos++;
+            }
+            if (field == idField) {
+                id = (int) parseValue();
+            } else if (field == slopeField) {
+                slope = parseValue();
+            } else if (field == areaField) {
+                area = parseValue();
+            } else {
+                skipField();
+            }
+        }
+        skipLine();
+        return true;
+    }
+
+    /**
+     * Reads file into a series for each glacier with an ID greater than 0.
+     * For each line, x is log10(slope) and y is log10(area), or 0 if the
+     * slope or area is not positive.
+     *
+     * @param file The file to read.
+     * @param idField The index of the glacier ID field.
+     * @param slopeField The index of the slope field.
+     * @param areaField The index of the area field.
+     * @return The series keyed by ID.
+     * @throws IOException If encountered.
+     */
+    public static FG_GlacierSeriesMap read(Path file,
+            int idField, int slopeField, int areaField) throws IOException {
+        return read(file, idField, slopeField, areaField,
+                FG_GlacierSeries.DEFAULT_MAX_DEGREE);
+    }
+
+    /**
+     * Reads file into a series for each glacier with an ID greater than 0.
+     * For each line, x is log10(slope) and y is log10(area), or 0 if the
+     * slope or area is not positive.
+     *
+     * @param file The file to read.
+     * @param idField The index of the glacier ID field.
+     * @param slopeField The index of the slope field.
+     * @param areaField The index of the area field.
+     * @param maxDegree The maximum degree of polynomial that can be fitted
+     * from the sums accumulated for each series.
+     * @return The series keyed by ID.
+     * @throws IOException If encountered.
+     */
+    public static FG_GlacierSeriesMap read(Path file, int idField,
+            int slopeField, int areaField, int maxDegree) throws IOException {
+        FG_GlacierSeriesMap r = new FG_GlacierSeriesMap(
+                FG_GlacierSeriesMap.DEFAULT_CAPACITY, maxDegree);
+        try (FG_SlopeAreaReader reader = new FG_SlopeAreaReader(file, idField,
+                slopeField, areaField)) {
+            FG_GlacierSeries s = null;
+            while (reader.next()) {
+                if (reader.id > 0) {
+                    if (s == null || s.id != reader.id) {
+                        s = r.getOrCreate(reader.id);
+                    }
+                    s.add(reader.slope > 0.0d ? Math.log10(reader.slope) : 0.0d,
+                            reader.area > 0.0d ? Math.log10(reader.area) : 0.0d);
+                }
+            }
+        }
+        return r;
+    }
+}
@@ -0,0 +1,128 @@
+/*
+ * Copyright 2019 Centre for Computational Geography.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.leeds.ccg.projects.fg.io;
+
+/**
+ * Static methods for converting between calendar dates and times and a single
+ * numeric time index expressed in minutes since 1970-01-01 00:00 (the epoch
+ * minute). Working with the numeric index avoids creating and splitting
+ * strings for every time in an input file.
+ *
+ * @author Andy Turner
+ * @version 1.0.0
+ */
+public class FG_Time {
+
+    /**
+     * The number of minutes in a day.
+     */
+    public static final int MINUTES_PER_DAY = 1440;
+
+    private FG_Time() {
+    }
+
+    /**
+     * @param year The year.
+     * @param month The month of the year (1 to 12).
+     * @param day The day of the month (1 to 31).
+     * @return The number of days from 1970-01-01 to the date given. This is
+     * calculated arithmetically using the proleptic Gregorian calendar so no
+     * objects are created.
+     */
+    public static long toEpochDay(int year, int month, int day) {
+        long y = month <= 2 ? year - 1 : year;
+        long era = Math.floorDiv(y, 400);
+        long yoe = y - era * 400;
+        long doy = (153 * (month + (month > 2 ? -3 : 9)) + 2) / 5 + day - 1;
+        long doe = yoe * 365 + yoe / 4 - yoe / 100 + doy;
+        return era * 146097 + doe - 719468;
+    }
+
+    /**
+     * @param year The year.
+     * @param month The month of the year (1 to 12).
+     * @param day The day of the month (1 to 31).
+     * @param hour The hour of the day (0 to 23).
+     * @param minute The minute of the hour (0 to 59).
+     * @return The epoch minute for the date and time given.
+     */
+    public static long toEpochMinute(int year, int month, int day, int hour,
+            int minute) {
+        return toEpochDay(year, month, day) * MINUTES_PER_DAY + hour * 60
+                + minute;
+    }
+
+    /**
+     * @param epochMinute The epoch minute.
+     * @return The minute of the day (0 to 1439) for epochMinute.
+     */
+    public static int getMinuteOfDay(long epochMinute) {
+        return (int) Math.floorMod(epochMinute, (long) MINUTES_PER_DAY);
+    }
+
+    /**
+     * @param epochMinute The epoch minute.
+     * @return A String representation of epochMinute in the form
+     * "yyyy-MM-dd HH:mm".
+     */
+    public static String toString(long epochMinute) {
+        long epochDay = Math.floorDiv(epochMinute, (long) MINUTES_PER_DAY);
+        // Inverse of toEpochDay
+        long z = epochDay + 719468;
+        long era = Math.floorDiv(z, 146097);
+        long doe = z - era * 146097;
+        long yoe = (doe - doe / 1460 + doe / 36524 - doe / 146096) / 365;
+        long doy = doe - (365 * yoe + yoe / 4 - yoe / 100);
+        long mp = (5 * doy + 2) / 153;
+        long d = doy - (153 * mp + 2) / 5 + 1;
+        long m = mp < 10 ? mp + 3 : mp - 9;
+        long y = yoe + era * 400 + (m <= 2 ? 1 : 0);
+        StringBuilder sb = new StringBuilder(16);
+        sb.append(y).append('-');
+        pad2(sb, (int) m).append('-');
+        pad2(sb, (int) d).append(' ');
+        return appendHHMM(sb, epochMinute).toString();
+    }
+
+    /**
+     * @param epochMinute The epoch minute.
+     * @return The time of day of epochMinute in the form "HH:mm".
+     */
+    public static String toHHMM(long epochMinute) {
+        return appendHHMM(new StringBuilder(5), epochMinute).toString();
+    }
+
+    /**
+     * Appends the time of day of epochMinute in the form "HH:mm" to sb.
+     *
+     * @param sb The StringBuilder to append to.
+     * @param epochMinute The epoch minute.
+     * @return sb
+     */
+    public static StringBuilder appendHHMM(StringBuilder sb,
+            long epochMinute) {
+        int mod = getMinuteOfDay(epochMinute);
+        pad2(sb, mod / 60).append(':');
+        return pad2(sb, mod % 60);
+    }
+
+    private static StringBuilder pad2(StringBuilder sb, int i) {
+        if (i < 10) {
+            sb.append('0');
+        }
+        return sb.append(i);
+    }
+}
@@ -0,0 +1,194 @@
+/*
+ * Copyright 2019 Centre for Computational Geography.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.leeds.ccg.projects.fg.io;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.logging.Logger;
+import uk.ac.leeds.ccg.projects.fg.core.FG_Log;
+
+/**
+ * A series of input files, one for each time from a start time to an end
+ * time inclusive at a regular cadence. The name of the file for a time, which
+ * may include directories relative to a base directory, is given by
+ * formatting the time with a DateTimeFormatter. For example the pattern
+ * "d't'HHmm'.txt'" gives "26t0900.txt" for 09:00 on the 26th and the pattern
+ * "MMMM/d't'HHmm'.txt'" gives "July/26t0900.txt" for such a time in July.
+ *
+ * Iterating gives the times for which there is a file. Which files exist is
+ * discovered lazily using a DirectoryStream for each directory when the
+ * first time with a file in that directory is reached, so a long series does
+ * not require all directories to be listed up front. Times with no file are
+ * logged and skipped.
+ *
+ * @author Andy Turner
+ * @version 1.0.0
+ */
+public class FG_TimeSeriesFiles implements Iterable<LocalDateTime> {
+
+    private static final Logger LOG = FG_Log.getLogger(
+            FG_TimeSeriesFiles.class);
+
+    /**
+     * The base directory.
+     */
+    public final Path dir;
+
+    /**
+     * For formatting a time into a file name relative to {@link #dir}.
+     */
+    public final DateTimeFormatter format;
+
+    /**
+     * The first time.
+     */
+    public final LocalDateTime start;
+
+    /**
+     * The last time.
+     */
+    public final LocalDateTime end;
+
+    /**
+     * The time between files.
+     */
+    public final Duration cadence;
+
+    /**
+     * The names of the files in each directory listed so far.
+     */
+    private final Map<Path, Set<String>> listed;
+
+    /**
+     * @param dir The base directory.
+     * @param format For formatting a time into a file name relative to dir.
+     * @param start The first time.
+     * @param end The last time.
+     * @param cadence The time between files. This must be positive.
+     */
+    public FG_TimeSeriesFiles(Path dir, DateTimeFormatter format,
+            LocalDateTime start, LocalDateTime end, Duration cadence) {
+        if (cadence.isNegative() || cadence.isZero()) {
+            throw new IllegalArgumentException("cadence must be positive");
+        }
+        this.dir = dir;
+        this.format = format;
+        this.start = start;
+        this.end = end;
+        this.cadence = cadence;
+        this.listed = new HashMap<>();
+    }
+
+    /**
+     * @param t The time.
+     * @return The path of the file for t.
+     */
+    public Path getPath(LocalDateTime t) {
+        return dir.resolve(format.format(t));
+    }
+
+    /**
+     * @param t The time.
+     * @return {@code true} if there is a file for t.
+     * @throws IOException If the directory of the file cannot be listed.
+     */
+    public synchronized boolean exists(LocalDateTime t) throws IOException {
+        Path p = getPath(t);
+        Path parent = p.getParent();
+        Set<String> names = listed.get(parent);
+        if (names == null) {
+            names = new HashSet<>();
+            if (Files.isDirectory(parent)) {
+                try (DirectoryStream<Path> ds = Files.newDirectoryStream(
+                        parent)) {
+                    for (Path f : ds) {
+                        names.add(f.getFileName().toString());
+                    }
+                }
+            }
+            listed.put(parent, names);
+        }
+        return names.contains(p.getFileName().toString());
+    }
+
+    /**
+     * @return The number of times from start to end at the cadence
+     * regardless of whether there are files for them.
+     */
+    public long getNumberOfTimes() {
+        if (end.isBefore(start)) {
+            return 0L;
+        }
+        return Duration.between(start, end).dividedBy(cadence) + 1;
+    }
+
+    /**
+     * @return An iterator over the times for which there is a file in time
+     * order.
+     * @throws UncheckedIOException If a directory cannot be listed.
+     */
+    @Override
+    public Iterator<LocalDateTime> iterator() {
+        return new Iterator<LocalDateTime>() {
+
+            private LocalDateTime t = start;
+            private LocalDateTime next = advance();
+
+            private LocalDateTime advance() {
+                try {
+                    while (!t.isAfter(end)) {
+                        LocalDateTime r = t;
+                        t = t.plus(cadence);
+                        if (exists(r)) {
+                            return r;
+                        }
+                        LOG.warning(() -> getPath(r) + " does not exist");
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                return null;
+            }
+
+            @Override
+            public boolean hasNext() {
+                return next != null;
+            }
+
+            @Override
+            public LocalDateTime next() {
+                if (next == null) {
+                    throw new NoSuchElementException();
+                }
+                LocalDateTime r = next;
+                next = advance();
+                return r;
+            }
+        };
+    }
+}
@@ -0,0 +1,286 @@
+/*
+ * Copyright 2019 Centre for Computational Geography.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.leeds.ccg.projects.fg.stats;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Statistics for each cell of a grid over a time series of grids. The grids
+ * are added one at a time in time order, so only the accumulators for each
+ * cell are held however many grids there are. The accumulators are
+ * primitive arrays with an element for each cell.
+ *
+ * For each time {@link #next(LocalDateTime)} is called and then
+ * {@link #add(int, int, double)} is called for each cell with a value. Cells
+ * without a value at a time are not added. Values for different cells can
+ * be added concurrently from different threads, but each cell must only be
+ * added to by one thread for each time. Once all times are added
+ * {@link #end()} is called and the statistics can be got with
+ * {@link #get(Statistic, int, int)}.
+ *
+ * @author Andy Turner
+ * @version 1.0.0
+ */
+public class FG_CellTimeSeriesStats {
+
+    /**
+     * The statistics.
+     */
+    public enum Statistic {
+
+        /**
+         * The number of times with a value.
+         */
+        N("n"),
+        /**
+         * The minimum value.
+         */
+        MIN("min"),
+        /**
+         * The maximum value.
+         */
+        MAX("max"),
+        /**
+         * The mean value.
+         */
+        MEAN("mean"),
+        /**
+         * The number of hours from the first time to the first time the
+         * maximum value occurs.
+         */
+        TIME_OF_MAX("timeOfMax"),
+        /**
+         * The number of times the value is above the threshold. For hourly
+         * grids this is the number of hours above the threshold.
+         */
+        HOURS_ABOVE("hoursAbove"),
+        /**
+         * The mean over the days with at least two values of the maximum less
+         * the minimum value in the day.
+         */
+        MEAN_DIURNAL_RANGE("meanDiurnalRange");
+
+        /**
+         * The name used for output.
+         */
+        public final String name;
+
+        Statistic(String name) {
+            this.name = name;
+        }
+    }
+
+    /**
+     * The number of rows.
+     */
+    public final int nRows;
+
+    /**
+     * The number of columns.
+     */
+    public final int nCols;
+
+    /**
+     * The value that values are counted as above for
+     * {@link Statistic#HOURS_ABOVE}.
+     */
+    public final double threshold;
+
+    private final int[] n;
+    private final double[] min;
+    private final double[] max;
+    private final double[] sum;
+    private final int[] timeOfMax;
+    private final int[] nAbove;
+
+    /**
+     * The minimum, maximum and number of values in the current day.
+     */
+    private final double[] dayMin;
+    private final double[] dayMax;
+    private final int[] dayN;
+
+    /**
+     * The sum of the diurnal ranges and the number of days summed.
+     */
+    private final double[] rangeSum;
+    private final int[] rangeN;
+
+    /**
+     * The times.
+     */
+    private final List<LocalDateTime> times;
+
+    /**
+     * The index in {@link #times} of the current time.
+     */
+    private int time;
+
+    /**
+     * The day of the current time.
+     */
+    private LocalDate day;
+
+    /**
+     * @param nRows The number of rows.
+     * @param nCols The number of columns.
+     * @param threshold The value that values are counted as above for
+     * {@link Statistic#HOURS_ABOVE}.
+     */
+    public FG_CellTimeSeriesStats(int nRows, int nCols, double threshold) {
+        long size = (long) nRows * nCols;
+        if (size > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("Grids with " + size
+                    + " cells are too big");
+        }
+        this.nRows = nRows;
+        this.nCols = nCols;
+        this.threshold = threshold;
+        int s = (int) size;
+        n = new int[s];
+        min = new double[s];
+        max = new double[s];
+        sum = new double[s];
+        timeOfMax = new int[s];
+        nAbove = new int[s];
+        dayMin = new double[s];
+        dayMax = new double[s];
+        dayN = new int[s];
+        rangeSum = new double[s];
+        rangeN = new int[s];
+        Arrays.fill(min, Double.POSITIVE_INFINITY);
+        Arrays.fill(max, Double.NEGATIVE_INFINITY);
+        times = new ArrayList<>();
+        time = -1;
+    }
+
+    /**
+     * Starts adding values for t.
+     *
+     * @param t The time. This must be after the previous time.
+     */
+    public void next(LocalDateTime t) {
+        if (time >= 0 && !t.isAfter(times.get(time))) {
+            throw new IllegalArgumentException(t + " is not after "
+                    + times.get(time));
+        }
+        LocalDate d = t.toLocalDate();
+        if (!d.equals(day)) {
+            endDay();
+            day = d;
+        }
+        times.add(t);
+        time++;
+    }
+
+    /**
+     * Adds the diurnal range for the current day of each cell with at least
+     * two values in the day and resets the daily accumulators.
+     */
+    private void endDay() {
+        for (int i = 0; i < dayN.length; i++) {
+            if (dayN[i] > 1) {
+                rangeSum[i] += dayMax[i] - dayMin[i];
+                rangeN[i]++;
+            }
+            dayN[i] = 0;
+        }
+    }
+
+    /**
+     * Adds the value of a cell for the current time.
+     *
+     * @param row The row of the cell.
+     * @param col The column of the cell.
+     * @param v The value.
+     */
+    public void add(int row, int col, double v) {
+        int i = row * nCols + col;
+        n[i]++;
+        sum[i] += v;
+        if (v < min[i]) {
+            min[i] = v;
+        }
+        if (v > max[i]) {
+            max[i] = v;
+            timeOfMax[i] = time;
+        }
+        if (v > threshold) {
+            nAbove[i]++;
+        }
+        if (dayN[i] == 0) {
+            dayMin[i] = v;
+            dayMax[i] = v;
+        } else {
+            dayMin[i] = Math.min(dayMin[i], v);
+            dayMax[i] = Math.max(dayMax[i], v);
+        }
+        dayN[i]++;
+    }
+
+    /**
+     * Ends adding values. This must be called before getting statistics.
+     */
+    public void end() {
+        endDay();
+        day = null;
+    }
+
+    /**
+     * @return The number of times.
+     */
+    public int getNumberOfTimes() {
+        return times.size();
+    }
+
+    /**
+     * @param s The statistic.
+     * @param row The row of the cell.
+     * @param col The column of the cell.
+     * @return The statistic for the cell or NaN if the cell has no values
+     * (or, for {@link Statistic#MEAN_DIURNAL_RANGE}, no days with two or more
+     * values).
+     */
+    public double get(Statistic s, int row, int col) {
+        int i = row * nCols + col;
+        if (s == Statistic.N) {
+            return n[i];
+        }
+        if (n[i] == 0) {
+            return Double.NaN;
+        }
+        switch (s) {
+            case MIN:
+                return min[i];
+            case MAX:
+                return max[i];
+            case MEAN:
+                return sum[i] / n[i];
+            case TIME_OF_MAX:
+                return Duration.between(times.get(0),
+                        times.get(timeOfMax[i])).getSeconds() / 3600.0d;
+            case HOURS_ABOVE:
+                return nAbove[i];
+            default:
+                return rangeN[i] == 0 ? Double.NaN : rangeSum[i] / rangeN[i];
+        }
+    }
+}
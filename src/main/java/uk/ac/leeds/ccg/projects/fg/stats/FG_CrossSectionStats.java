@@ -0,0 +1,221 @@
+/*
+ * Copyright 2019 Centre for Computational Geography.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.leeds.ccg.projects.fg.stats;
+
+import java.util.Arrays;
+import uk.ac.leeds.ccg.projects.fg.core.FG_Variable;
+
+/**
+ * For calculating the row, column and total statistics of a cross section
+ * variable in a single pass. Rows are added in time order using
+ * {@link #addRow(long, double[], int)} after which the statistics for that
+ * row are available in {@link #rowN}, {@link #rowSum} and {@link #rowMax}.
+ * Column and total statistics accumulate as rows are added.
+ *
+ * An instance can be reused for any number of cross sections by calling
+ * {@link #reset(FG_Variable, int)}, and it only allocates when a cross
+ * section has more columns than any before it.
+ *
+ * @author Andy Turner
+ * @version 1.0.0
+ */
+public class FG_CrossSectionStats {
+
+    /**
+     * The variable.
+     */
+    protected FG_Variable variable;
+
+    /**
+     * The number of columns.
+     */
+    public int nCols;
+
+    /**
+     * The number of values in the last row added that are not no data.
+     */
+    public int rowN;
+
+    /**
+     * The sum of the values in the last row added that are not no data.
+     */
+    public double rowSum;
+
+    /**
+     * The maximum of {@link Double#MIN_NORMAL} and the values in the last row
+     * added that are not no data.
+     */
+    public double rowMax;
+
+    /**
+     * The time each column first has a value that is not no data, or
+     * {@link Long#MIN_VALUE} if no such value has yet been added.
+     */
+    public long[] inundationTime;
+
+    /**
+     * The time of the first occurrence of the maximum value in each column.
+     */
+    public long[] maxTime;
+
+    /**
+     * The maximum value in each column.
+     */
+    public double[] columnMax;
+
+    /**
+     * The number of values that are not no data.
+     */
+    public long totalN;
+
+    /**
+     * The sum of the values that are not no data.
+     */
+    public double totalSum;
+
+    /**
+     * The maximum of 0 and the values that are not no data.
+     */
+    public double totalMax;
+
+    /**
+     * The number of values equal to {@link #totalMax}.
+     */
+    public long maxCount;
+
+    /**
+     * The time of the first occurrence of {@link #totalMax}, or
+     * {@link Long#MIN_VALUE} if maxCount is 0.
+     */
+    public long totalMaxTime;
+
+    /**
+     * The inundation time of the column in which {@link #totalMax} first
+     * occurs, or {@link Long#MIN_VALUE} if maxCount is 0.
+     */
+    public long inundationTimeMaxColumn;
+
+    /**
+     * For each threshold, the number of rows that have a value greater than
+     * the threshold.
+     */
+    public int[] thresholdCounts;
+
+    public FG_CrossSectionStats() {
+        inundationTime = new long[0];
+        maxTime = new long[0];
+        columnMax = new double[0];
+        thresholdCounts = new int[0];
+    }
+
+    /**
+     * Clears all statistics ready for a new cross section.
+     *
+     * @param variable The variable.
+     * @param nCols The number of columns.
+     */
+    public void reset(FG_Variable variable, int nCols) {
+        this.variable = variable;
+        this.nCols = nCols;
+        if (inundationTime.length < nCols) {
+            inundationTime = new long[nCols];
+            maxTime = new long[nCols];
+            columnMax = new double[nCols];
+        }
+        Arrays.fill(inundationTime, 0, nCols, Long.MIN_VALUE);
+        Arrays.fill(maxTime, 0, nCols, Long.MIN_VALUE);
+        Arrays.fill(columnMax, 0, nCols, 0.0d);
+        int nt = variable.thresholds.length;
+        if (thresholdCounts.length != nt) {
+            thresholdCounts = new int[nt];
+        } else {
+            Arrays.fill(thresholdCounts, 0);
+        }
+        rowN = 0;
+        rowSum = 0.0d;
+        rowMax = Double.MIN_NORMAL;
+        totalN = 0;
+        totalSum = 0.0d;
+        totalMax = 0.0d;
+        maxCount = 0;
+        totalMaxTime = Long.MIN_VALUE;
+        inundationTimeMaxColumn = Long.MIN_VALUE;
+    }
+
+    /**
+     * Adds a row updating all the statistics.
+     *
+     * @param time The time of the row.
+     * @param values The array containing the row values.
+     * @param offset The index in values of the value for column 0.
+     */
+    public void addRow(long time, double[] values, int offset) {
+        double[] noData = variable.noDataValues;
+        int n = 0;
+        double sum = 0.0d;
+        double hi = Double.NEGATIVE_INFINITY;
+        for (int col = 0; col < nCols; col++) {
+            double v = values[offset + col];
+            boolean isNoData = false;
+            for (double nd : noData) {
+                if (v == nd) {
+                    isNoData = true;
+                    break;
+                }
+            }
+            if (isNoData) {
+                continue;
+            }
+            n++;
+            sum += v;
+            hi = Math.max(hi, v);
+            totalSum += v;
+            // Column
+            if (inundationTime[col] == Long.MIN_VALUE) {
+                inundationTime[col] = time;
+                maxTime[col] = time;
+                columnMax[col] = v;
+            } else if (v > columnMax[col]) {
+                maxTime[col] = time;
+                columnMax[col] = v;
+            }
+            // Total maximum
+            if (v > totalMax) {
+                totalMax = v;
+                maxCount = 1;
+                totalMaxTime = time;
+                inundationTimeMaxColumn = inundationTime[col];
+            } else if (v == totalMax) {
+                maxCount++;
+            }
+        }
+        totalN += n;
+        rowN = n;
+        rowSum = sum;
+        rowMax = Math.max(Double.MIN_NORMAL, hi);
+        double[] thresholds = variable.thresholds;
+        for (int i = 0; i < thresholds.length && hi > thresholds[i]; i++) {
+            thresholdCounts[i]++;
+        }
+    }
+
+    /**
+     * @return The mean of the values that are not no data.
+     */
+    public double getTotalMean() {
+        return totalSum / totalN;
+    }
+}
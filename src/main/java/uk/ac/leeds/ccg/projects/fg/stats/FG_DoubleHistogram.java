@@ -0,0 +1,279 @@
+/*
+ * Copyright 2019 Centre for Computational Geography.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.leeds.ccg.projects.fg.stats;
+
+import java.util.Arrays;
+
+/**
+ * A histogram counting the number of times each distinct double value is
+ * added. The values and counts are held in primitive arrays in an open
+ * addressing hash table with linear probing, so adding a value does not
+ * allocate unless the table needs to grow. Values are distinct in the same
+ * sense as for {@link Double#equals(Object)}.
+ *
+ * For iterating in ascending order call {@link #sort()} after which the
+ * distinct values and their counts are in {@link #getSortedKeys()} and
+ * {@link #getSortedCounts()}. The order is that of
+ * {@link Double#compare(double, double)} which is also the order of a
+ * {@code TreeMap<Double, Long>}.
+ *
+ * @author Andy Turner
+ * @version 1.0.0
+ */
+public class FG_DoubleHistogram {
+
+    /**
+     * The default initial capacity.
+     */
+    public static final int DEFAULT_CAPACITY = 1 << 10;
+
+    /**
+     * The keys. A slot is empty if its count is 0.
+     */
+    private double[] keys;
+
+    /**
+     * The counts.
+     */
+    private long[] counts;
+
+    /**
+     * For calculating the slot for a key, 64 less the log base 2 of the
+     * table length.
+     */
+    private int shift;
+
+    /**
+     * The number of distinct keys.
+     */
+    private int size;
+
+    /**
+     * The sum of the counts.
+     */
+    private long total;
+
+    /**
+     * The distinct keys in ascending order after {@link #sort()}.
+     */
+    private double[] sortedKeys;
+
+    /**
+     * The counts of {@link #sortedKeys}.
+     */
+    private long[] sortedCounts;
+
+    public FG_DoubleHistogram() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param capacity The number of distinct values expected.
+     */
+    public FG_DoubleHistogram(int capacity) {
+        int n = Integer.highestOneBit(Math.max(4, capacity) * 2 - 1) << 1;
+        init(n);
+        sortedKeys = new double[0];
+        sortedCounts = new long[0];
+    }
+
+    private void init(int n) {
+        keys = new double[n];
+        counts = new long[n];
+        shift = 64 - Integer.numberOfTrailingZeros(n);
+    }
+
+    private int slot(double key) {
+        long h = Double.doubleToLongBits(key) * 0x9E3779B97F4A7C15L;
+        return (int) (h >>> shift);
+    }
+
+    /**
+     * Adds 1 to the count of key.
+     *
+     * @param key The value to add.
+     */
+    public void add(double key) {
+        add(key, 1L);
+    }
+
+    /**
+     * Adds count to the count of key.
+     *
+     * @param key The value to add.
+     * @param count The number to add. This must be positive.
+     */
+    public void add(double key, long count) {
+        long bits = Double.doubleToLongBits(key);
+        int mask = keys.length - 1;
+        int i = slot(key);
+        while (counts[i] != 0) {
+            if (Double.doubleToLongBits(keys[i]) == bits) {
+                counts[i] += count;
+                total += count;
+                return;
+            }
+            i = (i + 1) & mask;
+        }
+        keys[i] = key;
+        counts[i] = count;
+        total += count;
+        size++;
+        if (size * 2 > keys.length) {
+            grow();
+        }
+    }
+
+    private void grow() {
+        double[] oldKeys = keys;
+        long[] oldCounts = counts;
+        init(keys.length * 2);
+        int mask = keys.length - 1;
+        for (int j = 0; j < oldKeys.length; j++) {
+            if (oldCounts[j] != 0) {
+                int i = slot(oldKeys[j]);
+                while (counts[i] != 0) {
+                    i = (i + 1) & mask;
+                }
+                keys[i] = oldKeys[j];
+                counts[i] = oldCounts[j];
+            }
+        }
+    }
+
+    /**
+     * @param key The value.
+     * @return The count of key.
+     */
+    public long getCount(double key) {
+        long bits = Double.doubleToLongBits(key);
+        int mask = keys.length - 1;
+        int i = slot(key);
+        while (counts[i] != 0) {
+            if (Double.doubleToLongBits(keys[i]) == bits) {
+                return counts[i];
+            }
+            i = (i + 1) & mask;
+        }
+        return 0L;
+    }
+
+    /**
+     * Adds all the counts in h to this.
+     *
+     * @param h The histogram to merge into this.
+     */
+    public void merge(FG_DoubleHistogram h) {
+        for (int j = 0; j < h.keys.length; j++) {
+            if (h.counts[j] != 0) {
+                add(h.keys[j], h.counts[j]);
+            }
+        }
+    }
+
+    /**
+     * Removes all the values keeping the allocated capacity.
+     */
+    public void clear() {
+        Arrays.fill(counts, 0L);
+        size = 0;
+        total = 0L;
+    }
+
+    /**
+     * @return The number of distinct values.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return The sum of the counts.
+     */
+    public long getTotal() {
+        return total;
+    }
+
+    /**
+     * @return A new array of the distinct values in no particular order. The
+     * order is the same as that of {@link #getCounts()} if no values are
+     * added in between.
+     */
+    public double[] getKeys() {
+        double[] r = new double[size];
+        int k = 0;
+        for (int j = 0; j < keys.length; j++) {
+            if (counts[j] != 0) {
+                r[k] = keys[j];
+                k++;
+            }
+        }
+        return r;
+    }
+
+    /**
+     * @return A new array of the counts of the values in {@link #getKeys()}.
+     */
+    public long[] getCounts() {
+        long[] r = new long[size];
+        int k = 0;
+        for (int j = 0; j < keys.length; j++) {
+            if (counts[j] != 0) {
+                r[k] = counts[j];
+                k++;
+            }
+        }
+        return r;
+    }
+
+    /**
+     * Sorts the distinct values into ascending order. The results are in
+     * {@link #getSortedKeys()} and {@link #getSortedCounts()}.
+     */
+    public void sort() {
+        if (sortedKeys.length < size) {
+            sortedKeys = new double[size];
+            sortedCounts = new long[size];
+        }
+        int k = 0;
+        for (int j = 0; j < keys.length; j++) {
+            if (counts[j] != 0) {
+                sortedKeys[k] = keys[j];
+                k++;
+            }
+        }
+        Arrays.sort(sortedKeys, 0, size);
+        for (k = 0; k < size; k++) {
+            sortedCounts[k] = getCount(sortedKeys[k]);
+        }
+    }
+
+    /**
+     * @return The distinct values in ascending order in elements 0 to
+     * {@link #size()} - 1 as of the last call to {@link #sort()}. The array is
+     * reused by later calls.
+     */
+    public double[] getSortedKeys() {
+        return sortedKeys;
+    }
+
+    /**
+     * @return The counts of the values in {@link #getSortedKeys()}.
+     */
+    public long[] getSortedCounts() {
+        return sortedCounts;
+    }
+}
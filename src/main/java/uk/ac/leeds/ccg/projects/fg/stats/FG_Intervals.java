@@ -0,0 +1,67 @@
+/*
+ * Copyright 2019 Centre for Computational Geography.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.leeds.ccg.projects.fg.stats;
+
+/**
+ * A set of equal width intervals used to classify values. Interval 0 starts
+ * at {@link #startBound} and each interval is {@link #range} wide.
+ *
+ * @author Andy Turner
+ * @version 1.0.0
+ */
+public class FG_Intervals {
+
+    /**
+     * The width of each interval.
+     */
+    public final double range;
+
+    /**
+     * The lower bound of interval 0.
+     */
+    public final double startBound;
+
+    /**
+     * @param range The width of each interval. This must be positive.
+     * @param startBound The lower bound of interval 0.
+     */
+    public FG_Intervals(double range, double startBound) {
+        if (!(range > 0.0d)) {
+            throw new IllegalArgumentException("range " + range
+                    + " is not positive");
+        }
+        this.range = range;
+        this.startBound = startBound;
+    }
+
+    /**
+     * @param value The value.
+     * @return The ID of the interval that value is in. This is truncated
+     * towards zero, so is never less than the ID of a smaller value.
+     */
+    public long getInterval(double value) {
+        return (long) ((value - startBound) / range);
+    }
+
+    /**
+     * @return The range and start bound separated by an underscore, which is
+     * the form used in output directory names.
+     */
+    @Override
+    public String toString() {
+        return range + "_" + startBound;
+    }
+}
@@ -0,0 +1,221 @@
+/*
+ * Copyright 2019 Centre for Computational Geography.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.leeds.ccg.projects.fg.stats;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import uk.ac.leeds.ccg.math.Math_BigDecimal;
+
+/**
+ * For calculating the mean, the first four moments about the mean, the
+ * skewness and the kurtosis of a set of values given as distinct values and
+ * their counts. The work done is proportional to the number of distinct
+ * values rather than the number of values.
+ *
+ * The moments are the sums of the count weighted differences from the mean
+ * raised to the powers 1 to 4 divided by the number of values. How the
+ * calculations are done depends on the {@link FG_StatsEngine}.
+ *
+ * @author Andy Turner
+ * @version 1.0.0
+ */
+public class FG_Moments {
+
+    /**
+     * The number of decimal places the {@link FG_StatsEngine#BIG_DECIMAL}
+     * mean and moments are rounded to.
+     */
+    public static final int SCALE = 10;
+
+    /**
+     * The number of decimal places the {@link FG_StatsEngine#BIG_DECIMAL}
+     * skewness and kurtosis are rounded to.
+     */
+    public static final int RATIO_SCALE = 100;
+
+    /**
+     * The number of values.
+     */
+    public long n;
+
+    /**
+     * The sum of the values.
+     */
+    public double sum;
+
+    /**
+     * The mean of the values.
+     */
+    public double mean;
+
+    /**
+     * The number of distinct values less than the mean.
+     */
+    public long numberOfValuesBelowMean;
+
+    /**
+     * The number of distinct values greater than the mean.
+     */
+    public long numberOfValuesAboveMean;
+
+    /**
+     * The first moment about the mean.
+     */
+    public double moment1;
+
+    /**
+     * The second moment about the mean.
+     */
+    public double moment2;
+
+    /**
+     * The third moment about the mean.
+     */
+    public double moment3;
+
+    /**
+     * The fourth moment about the mean.
+     */
+    public double moment4;
+
+    /**
+     * moment3 / moment2^1.5 or NaN if moment2 is 0.
+     */
+    public double skewness;
+
+    /**
+     * moment4 / moment2^2 - 3 or NaN if moment2 is 0.
+     */
+    public double kurtosis;
+
+    public FG_Moments() {
+    }
+
+    /**
+     * Calculates the statistics.
+     *
+     * @param values The distinct values in ascending order.
+     * @param counts The number of each value.
+     * @param size The number of distinct values.
+     * @param engine The numeric engine to use.
+     */
+    public void calculate(double[] values, long[] counts, int size,
+            FG_StatsEngine engine) {
+        n = 0;
+        for (int i = 0; i < size; i++) {
+            n += counts[i];
+        }
+        numberOfValuesBelowMean = 0;
+        numberOfValuesAboveMean = 0;
+        if (engine == FG_StatsEngine.BIG_DECIMAL) {
+            calculateBigDecimal(values, counts, size);
+        } else {
+            calculateDouble(values, counts, size);
+        }
+    }
+
+    private void calculateDouble(double[] values, long[] counts, int size) {
+        FG_Sum s = new FG_Sum();
+        for (int i = 0; i < size; i++) {
+            s.add(counts[i] * values[i]);
+        }
+        sum = s.get();
+        mean = sum / n;
+        FG_Sum s1 = new FG_Sum();
+        FG_Sum s2 = new FG_Sum();
+        FG_Sum s3 = new FG_Sum();
+        FG_Sum s4 = new FG_Sum();
+        for (int i = 0; i < size; i++) {
+            double v = values[i];
+            if (v < mean) {
+                numberOfValuesBelowMean++;
+            } else if (v > mean) {
+                numberOfValuesAboveMean++;
+            }
+            double c = counts[i];
+            double d = v - mean;
+            double d2 = d * d;
+            s1.add(c * d);
+            s2.add(c * d2);
+            s3.add(c * d2 * d);
+            s4.add(c * d2 * d2);
+        }
+        moment1 = s1.get() / n;
+        moment2 = s2.get() / n;
+        moment3 = s3.get() / n;
+        moment4 = s4.get() / n;
+        if (moment2 == 0.0d) {
+            skewness = Double.NaN;
+            kurtosis = Double.NaN;
+        } else {
+            skewness = moment3 / (Math.sqrt(moment2) * moment2);
+            kurtosis = moment4 / (moment2 * moment2) - 3.0d;
+        }
+    }
+
+    private void calculateBigDecimal(double[] values, long[] counts,
+            int size) {
+        RoundingMode rm = RoundingMode.HALF_UP;
+        BigDecimal sumBD = BigDecimal.ZERO;
+        for (int i = 0; i < size; i++) {
+            sumBD = sumBD.add(new BigDecimal(Double.toString(values[i]))
+                    .multiply(BigDecimal.valueOf(counts[i])));
+        }
+        BigDecimal nBD = BigDecimal.valueOf(n);
+        BigDecimal meanBD = sumBD.divide(nBD, SCALE, rm);
+        BigDecimal m1 = BigDecimal.ZERO;
+        BigDecimal m2 = BigDecimal.ZERO;
+        BigDecimal m3 = BigDecimal.ZERO;
+        BigDecimal m4 = BigDecimal.ZERO;
+        for (int i = 0; i < size; i++) {
+            BigDecimal vBD = new BigDecimal(values[i]);
+            int cmp = vBD.compareTo(meanBD);
+            if (cmp < 0) {
+                numberOfValuesBelowMean++;
+            } else if (cmp > 0) {
+                numberOfValuesAboveMean++;
+            }
+            BigDecimal c = BigDecimal.valueOf(counts[i]);
+            BigDecimal d = vBD.subtract(meanBD);
+            BigDecimal d2 = d.multiply(d);
+            m1 = m1.add(d.multiply(c));
+            m2 = m2.add(d2.multiply(c));
+            m3 = m3.add(d2.multiply(d).multiply(c));
+            m4 = m4.add(d2.multiply(d2).multiply(c));
+        }
+        m1 = m1.divide(nBD, SCALE, rm);
+        m2 = m2.divide(nBD, SCALE, rm);
+        m3 = m3.divide(nBD, SCALE, rm);
+        m4 = m4.divide(nBD, SCALE, rm);
+        sum = sumBD.doubleValue();
+        mean = meanBD.doubleValue();
+        moment1 = m1.doubleValue();
+        moment2 = m2.doubleValue();
+        moment3 = m3.doubleValue();
+        moment4 = m4.doubleValue();
+        if (m2.signum() == 0) {
+            skewness = Double.NaN;
+            kurtosis = Double.NaN;
+        } else {
+            BigDecimal sqrtm2 = Math_BigDecimal.power(m2,
+                    Math_BigDecimal.HALF, SCALE, rm);
+            skewness = m3.divide(sqrtm2.multiply(m2), RATIO_SCALE, rm)
+                    .doubleValue();
+            kurtosis = m4.divide(m2.multiply(m2), RATIO_SCALE, rm)
+                    .subtract(BigDecimal.valueOf(3)).doubleValue();
+        }
+    }
+}
@@ -0,0 +1,213 @@
+/*
+ * Copyright 2019 Centre for Computational Geography.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.leeds.ccg.projects.fg.stats;
+
+import uk.ac.leeds.ccg.projects.fg.io.FG_GlacierSeries;
+
+/**
+ * Least squares polynomial fits of degrees 1 to a maximum to the data of a
+ * glacier for choosing the degree. All the fits are solved from the same
+ * power sums in {@link FG_GlacierSeries#sums} and the MRMSE of every degree
+ * is calculated in a single pass through the points, so this costs little
+ * more than a single fit.
+ *
+ * For a fit with p = degree + 1 coefficients and a sum of squared residuals
+ * SSE of n points:
+ * <ul>
+ * <li>AIC = n * ln(SSE / n) + 2 * p</li>
+ * <li>BIC = n * ln(SSE / n) + p * ln(n)</li>
+ * </ul>
+ * The lower these are the better. The degree with the lowest BIC is
+ * selected as BIC penalises extra coefficients more strongly than AIC.
+ *
+ * A degree that cannot be fitted, because the glacier has too few distinct
+ * slopes, has no coefficients and a NaN AIC, BIC and MRMSE, and is not
+ * considered in choosing the best degree. SSE is floored at
+ * {@link #SSE_TOLERANCE} times {@link FG_PolynomialSums#getSumOfSquares()}
+ * as smaller values are rounding errors. So degrees that fit the points
+ * exactly have the same SSE and the lowest of them has the best scores. If
+ * all the y values are the same, SSE is 0 and the AIC and BIC are -Infinity,
+ * which is the best score, so again the lowest degree is chosen.
+ *
+ * @author Andy Turner
+ * @version 1.0.0
+ */
+public class FG_PolynomialSelection {
+
+    /**
+     * The floor of SSE relative to the sum of squares of the y values.
+     */
+    public static final double SSE_TOLERANCE = 1.0e-12d;
+
+    /**
+     * The data fitted.
+     */
+    public final FG_GlacierSeries data;
+
+    /**
+     * The maximum degree fitted.
+     */
+    public final int maxDegree;
+
+    /**
+     * For each degree d, coefficients[d - 1] are the coefficients of the
+     * polynomial with the constant term first, or null if it is not fitted.
+     */
+    private final double[][] coefficients;
+
+    private final double[] aic;
+    private final double[] bic;
+    private final double[] mrmse;
+
+    /**
+     * The degree with the lowest AIC, or 0 if no degree is fitted.
+     */
+    public final int bestAICDegree;
+
+    /**
+     * The degree with the lowest BIC, or 0 if no degree is fitted.
+     */
+    public final int bestBICDegree;
+
+    /**
+     * @param data The data to fit. If the sums of data have a lower maximum
+     * degree than maxDegree they are recalculated from the points.
+     * @param maxDegree The maximum degree to fit.
+     */
+    public FG_PolynomialSelection(FG_GlacierSeries data, int maxDegree) {
+        this.data = data;
+        this.maxDegree = maxDegree;
+        double[] x = data.x;
+        double[] y = data.y;
+        int n = data.n;
+        FG_PolynomialSums sums = data.sums;
+        if (sums.maxDegree < maxDegree) {
+            sums = new FG_PolynomialSums(maxDegree);
+            for (int i = 0; i < n; i++) {
+                sums.add(x[i], y[i]);
+            }
+        }
+        coefficients = new double[maxDegree][];
+        aic = new double[maxDegree];
+        bic = new double[maxDegree];
+        mrmse = new double[maxDegree];
+        double lnn = Math.log(n);
+        double minSSE = SSE_TOLERANCE * sums.getSumOfSquares();
+        int bestAIC = 0;
+        int bestBIC = 0;
+        for (int d = 1; d <= maxDegree; d++) {
+            double[] c = sums.fit(d);
+            if (c == null || !isFinite(c)) {
+                aic[d - 1] = Double.NaN;
+                bic[d - 1] = Double.NaN;
+                mrmse[d - 1] = Double.NaN;
+                continue;
+            }
+            coefficients[d - 1] = c;
+            int p = d + 1;
+            double sse = Math.max(sums.getSumOfSquaredResiduals(d), minSSE);
+            double l = n * Math.log(sse / n);
+            aic[d - 1] = l + 2.0d * p;
+            bic[d - 1] = l + p * lnn;
+            if (!Double.isNaN(aic[d - 1])
+                    && (bestAIC == 0 || aic[d - 1] < aic[bestAIC - 1])) {
+                bestAIC = d;
+            }
+            if (!Double.isNaN(bic[d - 1])
+                    && (bestBIC == 0 || bic[d - 1] < bic[bestBIC - 1])) {
+                bestBIC = d;
+            }
+        }
+        bestAICDegree = bestAIC;
+        bestBICDegree = bestBIC;
+        // Sum the absolute residuals of all the fitted degrees in one pass.
+        for (int i = 0; i < n; i++) {
+            double xi = x[i];
+            for (int d = 0; d < maxDegree; d++) {
+                double[] c = coefficients[d];
+                if (c == null) {
+                    continue;
+                }
+                double v = c[d + 1];
+                for (int k = d; k >= 0; k--) {
+                    v = v * xi + c[k];
+                }
+                mrmse[d] += Math.abs(y[i] - v);
+            }
+        }
+        for (int d = 0; d < maxDegree; d++) {
+            mrmse[d] /= (double) n;
+        }
+    }
+
+    /**
+     * @param c The values to test.
+     * @return true if all the values in c are finite.
+     */
+    private static boolean isFinite(double[] c) {
+        for (double v : c) {
+            if (!Double.isFinite(v)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @param degree The degree.
+     * @return A copy of the coefficients of the polynomial of degree with the
+     * constant term first, or null if degree is not fitted.
+     */
+    public double[] getCoefficients(int degree) {
+        double[] c = coefficients[degree - 1];
+        return c == null ? null : c.clone();
+    }
+
+    /**
+     * @param degree The degree.
+     * @return The AIC of the polynomial of degree, or NaN if it is not
+     * fitted.
+     */
+    public double getAIC(int degree) {
+        return aic[degree - 1];
+    }
+
+    /**
+     * @param degree The degree.
+     * @return The BIC of the polynomial of degree, or NaN if it is not
+     * fitted.
+     */
+    public double getBIC(int degree) {
+        return bic[degree - 1];
+    }
+
+    /**
+     * @param degree The degree.
+     * @return The mean of the absolute differences between the y values and
+     * the polynomial of degree, or NaN if it is not fitted.
+     */
+    public double getMRMSE(int degree) {
+        return mrmse[degree - 1];
+    }
+
+    /**
+     * @return The selected degree, which is {@link #bestBICDegree}, or 0 if
+     * no degree is fitted.
+     */
+    public int getDegree() {
+        return bestBICDegree;
+    }
+}
@@ -0,0 +1,284 @@
+/*
+ * Copyright 2019 Centre for Computational Geography.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.leeds.ccg.projects.fg.stats;
+
+/**
+ * For least squares fitting of polynomials y = c0 + c1*x + ... + cd*x^d of
+ * any degree d up to a maximum to points that are added one at a time. Only
+ * the power sums needed for the normal equations are kept, so the memory
+ * used does not depend on the number of points and the points do not need
+ * to be held to be fitted.
+ *
+ * To keep the normal equations well conditioned the sums are of the
+ * differences u = x - x0 and v = y - y0 from the first point (x0, y0) added.
+ * The polynomial in u fitted to v is converted into one in x for y.
+ *
+ * @author Andy Turner
+ * @version 1.0.0
+ */
+public class FG_PolynomialSums {
+
+    /**
+     * A pivot in solving the normal equations that is no more than this times
+     * the sum of u^2k for its power k is taken to be 0. Such a pivot means
+     * u^k is, to within rounding, a combination of the lower powers of u over
+     * the points, so the fit is not determined.
+     */
+    public static final double RANK_TOLERANCE = 1.0e-10d;
+
+    /**
+     * The maximum degree of polynomial that can be fitted.
+     */
+    public final int maxDegree;
+
+    /**
+     * The number of points.
+     */
+    public long n;
+
+    /**
+     * The x value of the first point.
+     */
+    private double x0;
+
+    /**
+     * The y value of the first point.
+     */
+    private double y0;
+
+    /**
+     * For k = 0 to 2 * maxDegree, the sum of u^k.
+     */
+    private final double[] su;
+
+    /**
+     * For k = 0 to maxDegree, the sum of u^k * v.
+     */
+    private final double[] suv;
+
+    /**
+     * The sum of v^2.
+     */
+    private double svv;
+
+    /**
+     * @param maxDegree The maximum degree of polynomial that can be fitted.
+     */
+    public FG_PolynomialSums(int maxDegree) {
+        this.maxDegree = maxDegree;
+        su = new double[2 * maxDegree + 1];
+        suv = new double[maxDegree + 1];
+    }
+
+    /**
+     * Adds a point.
+     *
+     * @param x The x value.
+     * @param y The y value.
+     */
+    public void add(double x, double y) {
+        if (n == 0) {
+            x0 = x;
+            y0 = y;
+        }
+        n++;
+        double u = x - x0;
+        double v = y - y0;
+        double p = 1.0d;
+        for (int k = 0; k <= maxDegree; k++) {
+            su[k] += p;
+            suv[k] += p * v;
+            p *= u;
+        }
+        for (int k = maxDegree + 1; k < su.length; k++) {
+            su[k] += p;
+            p *= u;
+        }
+        svv += v * v;
+    }
+
+    /**
+     * Adds all the points in s to this.
+     *
+     * @param s The sums to merge into this. This must have the same maximum
+     * degree.
+     */
+    public void merge(FG_PolynomialSums s) {
+        if (s.n == 0) {
+            return;
+        }
+        if (n == 0) {
+            n = s.n;
+            x0 = s.x0;
+            y0 = s.y0;
+            System.arraycopy(s.su, 0, su, 0, su.length);
+            System.arraycopy(s.suv, 0, suv, 0, suv.length);
+            svv = s.svv;
+            return;
+        }
+        /*
+         * Shift the sums of s to the origin of this: with d = s.x0 - x0 and
+         * e = s.y0 - y0, u = u' + d and v = v' + e.
+         */
+        double d = s.x0 - x0;
+        double e = s.y0 - y0;
+        int m = su.length;
+        double[] dp = new double[m];
+        dp[0] = 1.0d;
+        for (int k = 1; k < m; k++) {
+            dp[k] = dp[k - 1] * d;
+        }
+        double[] sus = new double[m];
+        for (int k = 0; k < m; k++) {
+            double binomial = 1.0d;
+            for (int j = 0; j <= k; j++) {
+                // binomial is k choose j
+                sus[k] += binomial * s.su[j] * dp[k - j];
+                binomial = binomial * (k - j) / (j + 1);
+            }
+        }
+        for (int k = 0; k < suv.length; k++) {
+            double t = 0.0d;
+            double binomial = 1.0d;
+            for (int j = 0; j <= k; j++) {
+                t += binomial * (s.suv[j] + e * s.su[j]) * dp[k - j];
+                binomial = binomial * (k - j) / (j + 1);
+            }
+            suv[k] += t;
+        }
+        svv += s.svv + 2.0d * e * s.suv[0] + e * e * s.su[0];
+        for (int k = 0; k < m; k++) {
+            su[k] += sus[k];
+        }
+        n += s.n;
+    }
+
+    /**
+     * Solves the normal equations for the polynomial in u fitted to v.
+     *
+     * @param degree The degree.
+     * @return The coefficients with the constant term first, or null if the
+     * normal equations are singular.
+     */
+    private double[] fitUV(int degree) {
+        if (degree > maxDegree) {
+            throw new IllegalArgumentException("degree " + degree
+                    + " > maxDegree " + maxDegree);
+        }
+        int m = degree + 1;
+        double[][] a = new double[m][m + 1];
+        for (int i = 0; i < m; i++) {
+            for (int j = 0; j < m; j++) {
+                a[i][j] = su[i + j];
+            }
+            a[i][m] = suv[i];
+        }
+        // Gaussian elimination with partial pivoting.
+        for (int c = 0; c < m; c++) {
+            int pivot = c;
+            for (int r = c + 1; r < m; r++) {
+                if (Math.abs(a[r][c]) > Math.abs(a[pivot][c])) {
+                    pivot = r;
+                }
+            }
+            if (!(Math.abs(a[pivot][c]) > RANK_TOLERANCE * su[2 * c])) {
+                return null;
+            }
+            double[] t = a[c];
+            a[c] = a[pivot];
+            a[pivot] = t;
+            for (int r = c + 1; r < m; r++) {
+                double f = a[r][c] / a[c][c];
+                for (int k = c; k <= m; k++) {
+                    a[r][k] -= f * a[c][k];
+                }
+            }
+        }
+        double[] b = new double[m];
+        for (int i = m - 1; i >= 0; i--) {
+            double t = a[i][m];
+            for (int j = i + 1; j < m; j++) {
+                t -= a[i][j] * b[j];
+            }
+            b[i] = t / a[i][i];
+        }
+        return b;
+    }
+
+    /**
+     * The sum of the squared differences between the y values and the y
+     * value of the first point. Rounding errors in
+     * {@link #getSumOfSquaredResiduals(int)} are relative to this.
+     *
+     * @return The sum of squares.
+     */
+    public double getSumOfSquares() {
+        return svv;
+    }
+
+    /**
+     * Fits a polynomial of degree to the points. A fit needs more distinct x
+     * values than degree.
+     *
+     * @param degree The degree of the polynomial. This must not be greater
+     * than {@link #maxDegree}.
+     * @return The coefficients of the polynomial in x with the constant term
+     * first, or null if the fit is not determined.
+     */
+    public double[] fit(int degree) {
+        double[] b = fitUV(degree);
+        if (b == null) {
+            return null;
+        }
+        // Expand b0 + b1*(x - x0) + ... + bd*(x - x0)^d in powers of x.
+        int m = b.length;
+        double[] c = new double[m];
+        for (int k = 0; k < m; k++) {
+            double binomial = 1.0d;
+            double p = 1.0d;
+            for (int j = k; j >= 0; j--) {
+                // binomial is k choose j and p is (-x0)^(k - j)
+                c[j] += b[k] * binomial * p;
+                binomial = binomial * j / (k - j + 1);
+                p *= -x0;
+            }
+        }
+        c[0] += y0;
+        return c;
+    }
+
+    /**
+     * The sum of the squared differences between the y values and a
+     * polynomial of degree fitted by least squares. This is calculated from
+     * the sums without another pass through the points.
+     *
+     * @param degree The degree of the polynomial. This must not be greater
+     * than {@link #maxDegree}.
+     * @return The sum of the squared residuals, or {@link Double#NaN} if the
+     * fit is not determined.
+     */
+    public double getSumOfSquaredResiduals(int degree) {
+        double[] b = fitUV(degree);
+        if (b == null) {
+            return Double.NaN;
+        }
+        double r = svv;
+        for (int k = 0; k < b.length; k++) {
+            r -= b[k] * suv[k];
+        }
+        return Math.max(0.0d, r);
+    }
+}
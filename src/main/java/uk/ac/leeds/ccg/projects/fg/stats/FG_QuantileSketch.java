@@ -0,0 +1,263 @@
+/*
+ * Copyright 2019 Centre for Computational Geography.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.leeds.ccg.projects.fg.stats;
+
+/**
+ * A mergeable sketch for approximate quantiles with a relative error
+ * guarantee, after the DDSketch of Masson, Rim and Lee (2019). Values are
+ * counted in logarithmically sized buckets: bucket i holds the values x with
+ * gamma^(i-1) &lt; |x| &lt;= gamma^i where gamma = (1 + e) / (1 - e) and e is
+ * the relative error. Each bucket is represented by a value that is within
+ * a relative error e of every value in it, so any quantile is within e of
+ * the exact quantile calculated as by {@link FG_Quantiles}.
+ *
+ * The number of buckets depends only on e and the ratio of the largest to
+ * the smallest magnitude added, not on the number of values. For stream
+ * temperatures between 1 and 30 and e = 0.001 this is fewer than 2000.
+ * Sketches with the same relative error merge exactly, so sketches of tiles
+ * of a grid or of grids for different hours can be merged to give the same
+ * result as adding all the values to one sketch.
+ *
+ * @author Andy Turner
+ * @version 1.0.0
+ */
+public class FG_QuantileSketch {
+
+    /**
+     * The relative error.
+     */
+    public final double relativeError;
+
+    /**
+     * The ratio of the upper bounds of consecutive buckets.
+     */
+    private final double gamma;
+
+    /**
+     * The natural logarithm of {@link #gamma}.
+     */
+    private final double logGamma;
+
+    /**
+     * The counts of positive values in each bucket.
+     */
+    private final FG_LongHistogram positive;
+
+    /**
+     * The counts of negative values in each bucket of their magnitude.
+     */
+    private final FG_LongHistogram negative;
+
+    /**
+     * The count of values too close to zero to bucket.
+     */
+    private long zeroCount;
+
+    /**
+     * The number of values.
+     */
+    private long n;
+
+    /**
+     * The minimum value.
+     */
+    private double min = Double.POSITIVE_INFINITY;
+
+    /**
+     * The maximum value.
+     */
+    private double max = Double.NEGATIVE_INFINITY;
+
+    /**
+     * @param relativeError The relative error which must be greater than 0
+     * and less than 1, e.g. 0.001 for 0.1%.
+     */
+    public FG_QuantileSketch(double relativeError) {
+        if (!(relativeError > 0.0d && relativeError < 1.0d)) {
+            throw new IllegalArgumentException("Relative error "
+                    + relativeError + " is not in the range (0, 1)");
+        }
+        this.relativeError = relativeError;
+        gamma = (1.0d + relativeError) / (1.0d - relativeError);
+        logGamma = Math.log(gamma);
+        positive = new FG_LongHistogram();
+        negative = new FG_LongHistogram(16);
+    }
+
+    /**
+     * @param v The value to add.
+     */
+    public void add(double v) {
+        add(v, 1L);
+    }
+
+    /**
+     * @param v The value to add.
+     * @param count The number of times to add v. This must be positive.
+     */
+    public void add(double v, long count) {
+        if (Double.isNaN(v)) {
+            throw new IllegalArgumentException("Cannot add NaN");
+        }
+        if (v >= Double.MIN_NORMAL) {
+            positive.add(getIndex(v), count);
+        } else if (v <= -Double.MIN_NORMAL) {
+            negative.add(getIndex(-v), count);
+        } else {
+            zeroCount += count;
+        }
+        n += count;
+        min = Math.min(min, v);
+        max = Math.max(max, v);
+    }
+
+    /**
+     * @param magnitude A positive value.
+     * @return The index of the bucket for magnitude.
+     */
+    private long getIndex(double magnitude) {
+        return (long) Math.ceil(Math.log(magnitude) / logGamma);
+    }
+
+    /**
+     * @param index The index of a bucket.
+     * @return The value representing the bucket.
+     */
+    private double getValue(long index) {
+        return 2.0d * Math.pow(gamma, index) / (gamma + 1.0d);
+    }
+
+    /**
+     * Adds all the values in s to this.
+     *
+     * @param s The sketch to merge into this. This must have the same
+     * relative error as this.
+     */
+    public void merge(FG_QuantileSketch s) {
+        if (s.relativeError != relativeError) {
+            throw new IllegalArgumentException("Cannot merge a sketch with "
+                    + "relative error " + s.relativeError + " into one with "
+                    + "relative error " + relativeError);
+        }
+        positive.merge(s.positive);
+        negative.merge(s.negative);
+        zeroCount += s.zeroCount;
+        n += s.n;
+        min = Math.min(min, s.min);
+        max = Math.max(max, s.max);
+    }
+
+    /**
+     * @return The number of values.
+     */
+    public long getN() {
+        return n;
+    }
+
+    /**
+     * @return The minimum value, which is exact.
+     */
+    public double getMin() {
+        return min;
+    }
+
+    /**
+     * @return The maximum value, which is exact.
+     */
+    public double getMax() {
+        return max;
+    }
+
+    /**
+     * @return The number of buckets with values.
+     */
+    public int getNumberOfBuckets() {
+        return positive.size() + negative.size() + (zeroCount > 0L ? 1 : 0);
+    }
+
+    /**
+     * @param p The quantile in the range [0, 1].
+     * @return The p quantile to within the relative error or NaN if there
+     * are no values.
+     */
+    public double get(double p) {
+        if (!(p >= 0.0d && p <= 1.0d)) {
+            throw new IllegalArgumentException("Quantile " + p
+                    + " is not in the range [0, 1]");
+        }
+        if (n == 0L) {
+            return Double.NaN;
+        }
+        long index = FG_Quantiles.getIndex(p, n);
+        long c = 0L;
+        negative.sort();
+        long[] keys = negative.getSortedKeys();
+        long[] counts = negative.getSortedCounts();
+        for (int i = negative.size() - 1; i >= 0; i--) {
+            c += counts[i];
+            if (c > index) {
+                return clamp(-getValue(keys[i]));
+            }
+        }
+        c += zeroCount;
+        if (c > index) {
+            return clamp(0.0d);
+        }
+        positive.sort();
+        keys = positive.getSortedKeys();
+        counts = positive.getSortedCounts();
+        for (int i = 0; i < positive.size(); i++) {
+            c += counts[i];
+            if (c > index) {
+                return clamp(getValue(keys[i]));
+            }
+        }
+        return max;
+    }
+
+    /**
+     * @param v A value.
+     * @return v constrained to the range of the values added.
+     */
+    private double clamp(double v) {
+        return Math.max(min, Math.min(max, v));
+    }
+
+    /**
+     * @return A histogram of the values representing each bucket with the
+     * counts of the buckets. This can be used in place of a histogram of the
+     * exact values to calculate approximate statistics.
+     */
+    public FG_DoubleHistogram getHistogram() {
+        FG_DoubleHistogram h = new FG_DoubleHistogram(getNumberOfBuckets());
+        negative.sort();
+        long[] keys = negative.getSortedKeys();
+        long[] counts = negative.getSortedCounts();
+        for (int i = 0; i < negative.size(); i++) {
+            h.add(clamp(-getValue(keys[i])), counts[i]);
+        }
+        if (zeroCount > 0L) {
+            h.add(clamp(0.0d), zeroCount);
+        }
+        positive.sort();
+        keys = positive.getSortedKeys();
+        counts = positive.getSortedCounts();
+        for (int i = 0; i < positive.size(); i++) {
+            h.add(clamp(getValue(keys[i])), counts[i]);
+        }
+        return h;
+    }
+}
@@ -0,0 +1,250 @@
+/*
+ * Copyright 2019 Centre for Computational Geography.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.leeds.ccg.projects.fg.stats;
+
+import java.util.Arrays;
+
+/**
+ * Exact quantiles of the values counted in a {@link FG_DoubleHistogram}. The
+ * p quantile of n values is the value at index (long) (p * n) of the values
+ * in ascending order, which for p = 0.5 is the median as it has been
+ * calculated in this project.
+ *
+ * If there are few distinct values relative to n, they are sorted once and
+ * each quantile is found by a binary search of the cumulative counts. If
+ * most values are distinct, sorting them costs about as much as sorting all
+ * the values, so instead each quantile is selected in expected linear time
+ * by a quickselect over the distinct values weighted by their counts. Which
+ * is used is decided from the ratio of distinct values to values. Either way
+ * any number of quantiles can be got from the same histogram without
+ * further passes over the data.
+ *
+ * @author Andy Turner
+ * @version 1.0.0
+ */
+public class FG_Quantiles {
+
+    /**
+     * The default ratio of distinct values to values at or below which the
+     * distinct values are sorted.
+     */
+    public static final double DEFAULT_SORT_RATIO = 0.1d;
+
+    /**
+     * The distinct values. These are in ascending order if {@link #sorted}
+     * otherwise their order is changed by each selection.
+     */
+    private final double[] values;
+
+    /**
+     * The counts of {@link #values}.
+     */
+    private final long[] counts;
+
+    /**
+     * The cumulative counts of {@link #values} if {@link #sorted}, otherwise
+     * null.
+     */
+    private final long[] cumulativeCounts;
+
+    /**
+     * The number of values.
+     */
+    private final long n;
+
+    /**
+     * Whether {@link #values} are sorted.
+     */
+    private final boolean sorted;
+
+    /**
+     * @param h The histogram of the values.
+     */
+    public FG_Quantiles(FG_DoubleHistogram h) {
+        this(h, DEFAULT_SORT_RATIO);
+    }
+
+    /**
+     * @param h The histogram of the values.
+     * @param sortRatio The ratio of distinct values to values at or below
+     * which the distinct values are sorted.
+     */
+    public FG_Quantiles(FG_DoubleHistogram h, double sortRatio) {
+        int size = h.size();
+        n = h.getTotal();
+        sorted = size <= sortRatio * n;
+        if (sorted) {
+            h.sort();
+            values = Arrays.copyOf(h.getSortedKeys(), size);
+            counts = Arrays.copyOf(h.getSortedCounts(), size);
+            cumulativeCounts = new long[size];
+            long c = 0L;
+            for (int i = 0; i < size; i++) {
+                c += counts[i];
+                cumulativeCounts[i] = c;
+            }
+        } else {
+            values = h.getKeys();
+            counts = h.getCounts();
+            cumulativeCounts = null;
+        }
+    }
+
+    /**
+     * @return The number of distinct values.
+     */
+    public int size() {
+        return values.length;
+    }
+
+    /**
+     * @return The number of values.
+     */
+    public long getN() {
+        return n;
+    }
+
+    /**
+     * @return true if the distinct values are sorted.
+     */
+    public boolean isSorted() {
+        return sorted;
+    }
+
+    /**
+     * @return The distinct values. These are in ascending order if
+     * {@link #isSorted()}, otherwise in no particular order and reordered by
+     * each call to {@link #get(double)}.
+     */
+    public double[] getValues() {
+        return values;
+    }
+
+    /**
+     * @return The counts of the values in {@link #getValues()}.
+     */
+    public long[] getCounts() {
+        return counts;
+    }
+
+    /**
+     * @param p The quantile, e.g. 0.05 for the 5th percentile.
+     * @param n The number of values.
+     * @return The index of the p quantile in n values in ascending order.
+     */
+    public static long getIndex(double p, long n) {
+        return Math.min(n - 1L, (long) (p * n));
+    }
+
+    /**
+     * @param p The quantile in the range [0, 1], e.g. 0.05 for the 5th
+     * percentile.
+     * @return The p quantile or NaN if there are no values.
+     */
+    public double get(double p) {
+        if (!(p >= 0.0d && p <= 1.0d)) {
+            throw new IllegalArgumentException("Quantile " + p
+                    + " is not in the range [0, 1]");
+        }
+        if (n == 0L) {
+            return Double.NaN;
+        }
+        long index = getIndex(p, n);
+        if (sorted) {
+            // Find the first value with a cumulative count > index
+            int lo = 0;
+            int hi = values.length - 1;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (cumulativeCounts[mid] > index) {
+                    hi = mid;
+                } else {
+                    lo = mid + 1;
+                }
+            }
+            return values[lo];
+        }
+        return select(index);
+    }
+
+    /**
+     * @param ps The quantiles.
+     * @return The quantiles.
+     */
+    public double[] get(double... ps) {
+        double[] r = new double[ps.length];
+        for (int i = 0; i < ps.length; i++) {
+            r[i] = get(ps[i]);
+        }
+        return r;
+    }
+
+    /**
+     * Selects the value at index in ascending order by partitioning the
+     * distinct values three ways around a pivot and continuing in the part
+     * that the index falls in.
+     *
+     * @param index The index.
+     * @return The value at index.
+     */
+    private double select(long index) {
+        int lo = 0;
+        int hi = values.length - 1;
+        // The number of values below lo
+        long below = 0L;
+        while (lo < hi) {
+            double pivot = values[(lo + hi) >>> 1];
+            int lt = lo;
+            int i = lo;
+            int gt = hi;
+            long countLt = 0L;
+            long countEq = 0L;
+            while (i <= gt) {
+                int c = Double.compare(values[i], pivot);
+                if (c < 0) {
+                    countLt += counts[i];
+                    swap(lt, i);
+                    lt++;
+                    i++;
+                } else if (c > 0) {
+                    swap(i, gt);
+                    gt--;
+                } else {
+                    countEq += counts[i];
+                    i++;
+                }
+            }
+            if (index < below + countLt) {
+                hi = lt - 1;
+            } else if (index < below + countLt + countEq) {
+                return pivot;
+            } else {
+                below += countLt + countEq;
+                lo = gt + 1;
+            }
+        }
+        return values[lo];
+    }
+
+    private void swap(int i, int j) {
+        double v = values[i];
+        values[i] = values[j];
+        values[j] = v;
+        long c = counts[i];
+        counts[i] = counts[j];
+        counts[j] = c;
+    }
+}
@@ -0,0 +1,196 @@
+/*
+ * Copyright 2019 Centre for Computational Geography.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.leeds.ccg.projects.fg.stats;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.logging.Logger;
+import uk.ac.leeds.ccg.math.Math_BigDecimal;
+import uk.ac.leeds.ccg.projects.fg.PolynomialFunctionNewtonForm;
+import uk.ac.leeds.ccg.projects.fg.core.FG_Log;
+import uk.ac.leeds.ccg.projects.fg.io.FG_GlacierSeries;
+
+/**
+ * A least squares polynomial fit of y = log(area) against x = log(slope) for
+ * a glacier. The fit has a hump if the coefficient of x^2 rounded for display
+ * is negative, in which case the vertex of the quadratic given by the
+ * rounded coefficients of x^2, x and 1 is the location of the hump. This
+ * does not create any chart objects, so it can be used to calculate the
+ * numbers without plotting.
+ *
+ * The coefficients are calculated from the power sums accumulated in the
+ * {@link FG_GlacierSeries#sums} as the points were read, so fitting does not
+ * need another pass through the points. Only {@link #MRMSE} needs a pass.
+ *
+ * If there are no more distinct x values than the degree, for example if
+ * all the slopes are the same, the fit is not determined. Then a warning is
+ * logged, {@link #isFitted} is false, there is no hump and the errors are
+ * {@link Double#NaN}.
+ *
+ * @author Andy Turner
+ * @version 1.0.0
+ */
+public class FG_SlopeAreaFit {
+
+    private static final Logger LOG = FG_Log.getLogger(FG_SlopeAreaFit.class);
+
+    /**
+     * The data fitted.
+     */
+    public final FG_GlacierSeries data;
+
+    /**
+     * The degree of the polynomial.
+     */
+    public final int degree;
+
+    /**
+     * Whether the polynomial could be fitted.
+     */
+    public final boolean isFitted;
+
+    /**
+     * The coefficients of the polynomial with the constant term first. This
+     * is empty if the polynomial could not be fitted.
+     */
+    public final double[] coefficients;
+
+    /**
+     * The coefficients rounded for display.
+     */
+    public final BigDecimal[] roundedCoefficients;
+
+    /**
+     * Whether the fit has a hump.
+     */
+    public final boolean isHump;
+
+    /**
+     * The y value of the hump, or {@link Double#NEGATIVE_INFINITY} if there is
+     * no hump.
+     */
+    public final double maxy2;
+
+    /**
+     * The x value of the hump, or 0 if there is no hump.
+     */
+    public final double xAtMaxy2;
+
+    /**
+     * The mean of the absolute differences between the y values and the
+     * fitted polynomial.
+     */
+    public final double MRMSE;
+
+    /**
+     * The root mean squared difference between the y values and the fitted
+     * polynomial. This is calculated from the power sums.
+     */
+    public final double RMSE;
+
+    /**
+     * @param data The data to fit.
+     * @param degree The degree of the polynomial.
+     * @param decimalPlacePrecisionForDisplay The number of decimal places the
+     * coefficients are rounded to.
+     * @param rm The RoundingMode for rounding the coefficients.
+     */
+    public FG_SlopeAreaFit(FG_GlacierSeries data, int degree,
+            int decimalPlacePrecisionForDisplay, RoundingMode rm) {
+        this.data = data;
+        this.degree = degree;
+        double[] x = data.x;
+        double[] y = data.y;
+        int n = data.n;
+        FG_PolynomialSums sums = data.sums;
+        if (sums.maxDegree < degree) {
+            sums = new FG_PolynomialSums(degree);
+            for (int i = 0; i < n; i++) {
+                sums.add(x[i], y[i]);
+            }
+        }
+        double[] fitted = sums.fit(degree);
+        isFitted = fitted != null && isFinite(fitted);
+        if (!isFitted) {
+            LOG.warning("Glacier " + data.id + " with " + n + " points has"
+                    + " too few distinct slopes to fit a polynomial of degree "
+                    + degree);
+            coefficients = new double[0];
+            roundedCoefficients = new BigDecimal[0];
+            maxy2 = Double.NEGATIVE_INFINITY;
+            xAtMaxy2 = 0.0d;
+            isHump = false;
+            MRMSE = Double.NaN;
+            RMSE = Double.NaN;
+            return;
+        }
+        coefficients = fitted;
+        RMSE = Math.sqrt(sums.getSumOfSquaredResiduals(degree) / (double) n);
+        roundedCoefficients = new BigDecimal[coefficients.length];
+        for (int i = 0; i < coefficients.length; i++) {
+            roundedCoefficients[i] = Math_BigDecimal.roundToAndSetDecimalPlaces(
+                    BigDecimal.valueOf(coefficients[i]),
+                    decimalPlacePrecisionForDisplay, rm);
+        }
+        double a = getRounded(2);
+        if (a < 0) {
+            double b = getRounded(1);
+            double c = getRounded(0);
+            maxy2 = c - ((b * b) / (4.0d * a));
+            xAtMaxy2 = (-1.0d * b) / (2.0d * a);
+            isHump = true;
+        } else {
+            maxy2 = Double.NEGATIVE_INFINITY;
+            xAtMaxy2 = 0.0d;
+            isHump = false;
+        }
+        MRMSE = getPolynomial().meanAbsoluteResidual(x, y, n);
+    }
+
+    private static boolean isFinite(double[] c) {
+        for (double v : c) {
+            if (!Double.isFinite(v)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return The fitted polynomial as a {@link PolynomialFunctionNewtonForm}
+     * with all the centres 0 for evaluating at many points, or null if the
+     * polynomial could not be fitted.
+     */
+    public final PolynomialFunctionNewtonForm getPolynomial() {
+        if (!isFitted) {
+            return null;
+        }
+        return new PolynomialFunctionNewtonForm(coefficients,
+                new double[coefficients.length - 1]);
+    }
+
+    /**
+     * @param i The power of x.
+     * @return The coefficient of x^i rounded for display or 0 if the degree
+     * is less than i.
+     */
+    public final double getRounded(int i) {
+        if (i < roundedCoefficients.length) {
+            return roundedCoefficients[i].doubleValue();
+        }
+        return 0.0d;
+    }
+}
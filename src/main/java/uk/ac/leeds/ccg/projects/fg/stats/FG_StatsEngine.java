@@ -0,0 +1,46 @@
+/*
+ * Copyright 2019 Centre for Computational Geography.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.leeds.ccg.projects.fg.stats;
+
+/**
+ * The numeric engine used to calculate statistics.
+ *
+ * @author Andy Turner
+ * @version 1.0.0
+ */
+public enum FG_StatsEngine {
+
+    /**
+     * Calculations are done with doubles using compensated summation and
+     * count weighted moments. This is the default and is much faster than
+     * {@link #BIG_DECIMAL}. For data given to a few decimal places, as
+     * stream temperatures are, the mean and moments agree with
+     * {@link #BIG_DECIMAL} to within 1e-10 + 1e-12 * |x| where x is the
+     * {@link #BIG_DECIMAL} value (which is itself rounded to 10 decimal
+     * places). The skewness and kurtosis agree to within 1e-9 + 1e-9 * |x|
+     * provided the second moment is at least 0.01. For smaller second
+     * moments the difference is dominated by the rounding of the
+     * {@link #BIG_DECIMAL} moments.
+     */
+    DOUBLE,
+
+    /**
+     * Calculations are done with BigDecimal arithmetic. This is slow but is
+     * exact up to the rounding of the mean and moments to 10 decimal places,
+     * so it serves as a reference.
+     */
+    BIG_DECIMAL
+}
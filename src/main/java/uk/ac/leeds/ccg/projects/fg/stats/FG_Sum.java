@@ -0,0 +1,68 @@
+/*
+ * Copyright 2019 Centre for Computational Geography.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.leeds.ccg.projects.fg.stats;
+
+/**
+ * A sum of doubles calculated using Neumaier's variant of Kahan compensated
+ * summation. The error of the result does not grow with the number of values
+ * added as it does for naive summation.
+ *
+ * @author Andy Turner
+ * @version 1.0.0
+ */
+public class FG_Sum {
+
+    /**
+     * The running sum.
+     */
+    private double sum;
+
+    /**
+     * The running compensation for lost low order bits.
+     */
+    private double c;
+
+    public FG_Sum() {
+    }
+
+    /**
+     * @param v The value to add.
+     */
+    public void add(double v) {
+        double t = sum + v;
+        if (Math.abs(sum) >= Math.abs(v)) {
+            c += (sum - t) + v;
+        } else {
+            c += (v - t) + sum;
+        }
+        sum = t;
+    }
+
+    /**
+     * @return The sum.
+     */
+    public double get() {
+        return sum + c;
+    }
+
+    /**
+     * Sets the sum to 0.
+     */
+    public void reset() {
+        sum = 0.0d;
+        c = 0.0d;
+    }
+}
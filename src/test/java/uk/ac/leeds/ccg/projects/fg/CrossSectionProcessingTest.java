@@ -0,0 +1,55 @@
+/*
+ * Copyright 2019 Centre for Computational Geography.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.leeds.ccg.projects.fg;
+
+import org.junit.jupiter.api.Test;
+import uk.ac.leeds.ccg.projects.fg.io.FG_Time;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Tests for {@link CrossSectionProcessing}.
+ *
+ * @author Andy Turner
+ * @version 1.0.0
+ */
+public class CrossSectionProcessingTest {
+
+    /**
+     * Test of getTimeToMax method, of class CrossSectionProcessing, within a
+     * day and across midnight and date boundaries.
+     */
+    @Test
+    public void testGetTimeToMax() {
+        CrossSectionProcessing p = new CrossSectionProcessing(null);
+        long t = FG_Time.toEpochMinute(2012, 4, 17, 10, 5);
+        assertEquals(0, p.getTimeToMax(t, t));
+        assertEquals(55, p.getTimeToMax(t,
+                FG_Time.toEpochMinute(2012, 4, 17, 11, 0)));
+        // Across midnight.
+        assertEquals(20, p.getTimeToMax(
+                FG_Time.toEpochMinute(2012, 4, 17, 23, 50),
+                FG_Time.toEpochMinute(2012, 4, 18, 0, 10)));
+        // Across the end of a month and of a leap year.
+        assertEquals(FG_Time.MINUTES_PER_DAY + 1, p.getTimeToMax(
+                FG_Time.toEpochMinute(2012, 2, 28, 12, 0),
+                FG_Time.toEpochMinute(2012, 2, 29, 12, 1)));
+        assertEquals(2, p.getTimeToMax(
+                FG_Time.toEpochMinute(2012, 12, 31, 23, 59),
+                FG_Time.toEpochMinute(2013, 1, 1, 0, 1)));
+        // No inundation.
+        assertEquals(0, p.getTimeToMax(Long.MIN_VALUE, t));
+    }
+}
@@ -0,0 +1,150 @@
+/*
+ * Copyright 2019 Centre for Computational Geography.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.leeds.ccg.projects.fg.io;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Tests for {@link FG_CSVReader}.
+ *
+ * @author Andy Turner
+ * @version 1.0.0
+ */
+public class FG_CSVReaderTest {
+
+    /**
+     * Parses the comma separated values in line.
+     *
+     * @param line The line.
+     * @return The values.
+     * @throws IOException If encountered.
+     */
+    private static double[] parse(String line) throws IOException {
+        Path f = Files.createTempFile("FG_CSVReaderTest", ".csv");
+        try {
+            Files.writeString(f, line + "\n");
+            try (FG_CSVReader r = new FG_CSVReader(f)) {
+                int n = line.split(",", -1).length;
+                double[] v = new double[n];
+                for (int i = 0; i < n; i++) {
+                    v[i] = r.parseValue();
+                    if (r.peek() == ',') {
+                        r.pos++;
+                    }
+                }
+                return v;
+            }
+        } finally {
+            Files.delete(f);
+        }
+    }
+
+    /**
+     * Checks that each value in s parses to the same double as
+     * {@link Double#parseDouble(String)}.
+     */
+    private static void assertParsed(String... s) throws IOException {
+        double[] v = parse(String.join(",", s));
+        for (int i = 0; i < s.length; i++) {
+            assertEquals(Double.parseDouble(s[i]), v[i], s[i]);
+        }
+    }
+
+    /**
+     * Test of parseValue method, of class FG_CSVReader, for simple values.
+     */
+    @Test
+    public void testParseValue() throws IOException {
+        assertParsed("0", "-0", "+0", "1", "-1", "1.5", ".5", "5.", "-.5",
+                "0.1", "-0.000", " 2.5 ", "0000000000000000000001.5", "NaN",
+                "Infinity", "-Infinity", "1.5d");
+        // Empty values are read as 0.
+        double[] v = parse(",  ,1");
+        assertEquals(0.0d, v[0]);
+        assertEquals(0.0d, v[1]);
+        assertEquals(1.0d, v[2]);
+    }
+
+    /**
+     * Test of parseValue method, of class FG_CSVReader, for mantissas of
+     * more than 18 digits and around 2^53.
+     */
+    @Test
+    public void testParseValueLongMantissa() throws IOException {
+        assertParsed("123456789012345678", "1234567890123456789",
+                "12345678901234567890123", "1.2345678901234567890123",
+                "1.0000000000000000000000001", "0.1000000000000000055511151231",
+                "9007199254740992", "9007199254740993", "-9007199254740993",
+                "900719925474099.3", "0.000000000000000000000000001");
+    }
+
+    /**
+     * Test of parseValue method, of class FG_CSVReader, for exponents around
+     * the limits of the arithmetic conversion and of doubles.
+     */
+    @Test
+    public void testParseValueExponent() throws IOException {
+        assertParsed("1e22", "1e23", "1e-22", "1e-23", "1.5e-22", "1.5e22",
+                "15e21", "1E5", "1e+5", "-1e-5", "1e0000000005",
+                "1e00000000005", "1e2147483648", "1e-2147483648",
+                "1e4294967301", "4.9e-324", "1e-400",
+                "1.7976931348623157e308", "1e400", "-1e400");
+    }
+
+    /**
+     * Test of parseValue method, of class FG_CSVReader, for random values
+     * over more than one buffer.
+     */
+    @Test
+    public void testParseValueRandom() throws IOException {
+        Random r = new Random(1L);
+        String[] s = new String[20000];
+        for (int i = 0; i < s.length; i++) {
+            double d = r.nextGaussian() * Math.pow(10.0d, r.nextInt(40) - 20);
+            String precision = "%." + r.nextInt(20);
+            switch (i % 3) {
+                case 0:
+                    s[i] = Double.toString(d);
+                    break;
+                case 1:
+                    s[i] = String.format(Locale.ROOT, precision + "f", d);
+                    break;
+                default:
+                    s[i] = String.format(Locale.ROOT, precision + "e", d);
+            }
+        }
+        assertParsed(s);
+    }
+
+    /**
+     * Test of parseValue method, of class FG_CSVReader, for values that are
+     * not numbers.
+     */
+    @Test
+    public void testParseValueInvalid() {
+        for (String s : new String[]{"-", "+", ".", "-.", "+.e5", "1e",
+            "1e+", "abc", "1.2.3", "1,5e-x"}) {
+            assertThrows(IOException.class, () -> parse(s), s);
+        }
+    }
+}
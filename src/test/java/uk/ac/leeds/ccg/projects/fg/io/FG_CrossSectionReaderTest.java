@@ -0,0 +1,155 @@
+/*
+ * Copyright 2019 Centre for Computational Geography.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.leeds.ccg.projects.fg.io;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Tests for {@link FG_CrossSectionReader}.
+ *
+ * @author Andy Turner
+ * @version 1.0.0
+ */
+public class FG_CrossSectionReaderTest {
+
+    /**
+     * Reads content as a cross section file.
+     *
+     * @param content The content of the file.
+     * @return The data read.
+     * @throws IOException If encountered.
+     */
+    private static FG_CrossSectionData read(String content)
+            throws IOException {
+        Path f = Files.createTempFile("FG_CrossSectionReaderTest", ".csv");
+        try {
+            Files.writeString(f, content);
+            return FG_CrossSectionReader.read(f);
+        } finally {
+            Files.delete(f);
+        }
+    }
+
+    /**
+     * @param time The time field of a line.
+     * @return The time read from a file with one line with time.
+     */
+    private static long readTime(String time) throws IOException {
+        return read("Time,c0\n" + time + ",1\n").times[0];
+    }
+
+    /**
+     * Test of next method, of class FG_CrossSectionReader, for the two date
+     * formats.
+     */
+    @Test
+    public void testDateFormats() throws IOException {
+        long expected = FG_Time.toEpochMinute(2012, 4, 17, 10, 5);
+        // day/month/year
+        assertEquals(expected, readTime("17/04/2012 10:05"));
+        assertEquals(expected, readTime("17/4/2012 10:5"));
+        assertEquals(expected, readTime("17.04.2012 10:05"));
+        // year-month-day
+        assertEquals(expected, readTime("2012-04-17 10:05"));
+        assertEquals(expected, readTime("2012/04/17 10:05"));
+        // Seconds are ignored.
+        assertEquals(expected, readTime("17/04/2012 10:05:59"));
+        assertEquals(expected, readTime("  2012-04-17   10:05"));
+        // A time with no date is on 1970-01-01.
+        assertEquals(605L, readTime("10:05"));
+    }
+
+    /**
+     * Test of next method, of class FG_CrossSectionReader, for 2 digit
+     * years which are taken to be in the 2000s.
+     */
+    @Test
+    public void testTwoDigitYears() throws IOException {
+        assertEquals(FG_Time.toEpochMinute(2012, 4, 17, 10, 5),
+                readTime("17/04/12 10:05"));
+        assertEquals(FG_Time.toEpochMinute(2000, 1, 1, 0, 0),
+                readTime("01/01/00 00:00"));
+        assertEquals(FG_Time.toEpochMinute(2099, 12, 31, 23, 59),
+                readTime("31/12/99 23:59"));
+        // 3 digit years are not changed.
+        assertEquals(FG_Time.toEpochMinute(999, 12, 31, 0, 0),
+                readTime("31/12/999 00:00"));
+    }
+
+    /**
+     * Test of next method, of class FG_CrossSectionReader, for a year-month-day
+     * date that is split across a refill of the buffer.
+     */
+    @Test
+    public void testDateAcrossBuffer() throws IOException {
+        long expected = FG_Time.toEpochMinute(2012, 4, 17, 10, 5);
+        // The buffer holds 1 << 16 bytes.
+        for (int split = 1; split <= 4; split++) {
+            StringBuilder sb = new StringBuilder("Time,c0");
+            while (sb.length() < (1 << 16) - split - 1) {
+                sb.append(' ');
+            }
+            sb.append('\n').append("2012-04-17 10:05,1\n");
+            assertEquals(expected, read(sb.toString()).times[0],
+                    "split " + split);
+        }
+    }
+
+    /**
+     * Test of next method, of class FG_CrossSectionReader, for malformed
+     * times.
+     */
+    @Test
+    public void testMalformedTimes() {
+        for (String time : new String[]{"17/04 10:05", "17//2012 10:05",
+            "a", "17/04/2012 :05"}) {
+            assertThrows(IOException.class, () -> readTime(time), time);
+        }
+    }
+
+    /**
+     * Test of read method, of class FG_CrossSectionReader, for rows with
+     * empty and missing values.
+     */
+    @Test
+    public void testRead() throws IOException {
+        FG_CrossSectionData d = read("Time,c0,c1,c2\n"
+                + "17/04/2012 10:00,1.5,,-999\n"
+                + "\n"
+                + "17/04/2012 10:07,2\r\n"
+                + "17/04/2012 10:14, 3 ,4,5e-1");
+        assertEquals(3, d.nRows);
+        assertEquals(3, d.nCols);
+        long t = FG_Time.toEpochMinute(2012, 4, 17, 10, 0);
+        assertArrayEquals(new long[]{t, t + 7, t + 14},
+                Arrays.copyOf(d.times, d.nRows));
+        assertArrayEquals(new double[]{1.5d, 0.0d, -999.0d, 2.0d, 0.0d,
+            0.0d, 3.0d, 4.0d, 0.5d}, Arrays.copyOf(d.values, 9));
+        // A row with more values than the first is an error.
+        assertThrows(IOException.class, () -> read("Time,c0\n"
+                + "17/04/2012 10:00,1\n17/04/2012 10:07,2,3\n"));
+        // A file with only a header has no rows.
+        d = read("Time,c0\n");
+        assertEquals(0, d.nRows);
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright 2019 Centre for Computational Geography.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.leeds.ccg.projects.fg.io;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Tests for {@link FG_Time}.
+ *
+ * @author Andy Turner
+ * @version 1.0.0
+ */
+public class FG_TimeTest {
+
+    /**
+     * Test of toEpochDay method, of class FG_Time, against
+     * {@link LocalDate#toEpochDay()} for every day from 1600 to 2400, which
+     * includes the leap year rules for centuries.
+     */
+    @Test
+    public void testToEpochDay() {
+        LocalDate d = LocalDate.of(1600, 1, 1);
+        LocalDate end = LocalDate.of(2400, 12, 31);
+        while (!d.isAfter(end)) {
+            assertEquals(d.toEpochDay(), FG_Time.toEpochDay(d.getYear(),
+                    d.getMonthValue(), d.getDayOfMonth()), d.toString());
+            d = d.plusDays(1);
+        }
+        assertEquals(0L, FG_Time.toEpochDay(1970, 1, 1));
+        assertEquals(-1L, FG_Time.toEpochDay(1969, 12, 31));
+        assertEquals(LocalDate.of(-100, 3, 1).toEpochDay(),
+                FG_Time.toEpochDay(-100, 3, 1));
+    }
+
+    /**
+     * Test of toEpochMinute method, of class FG_Time.
+     */
+    @Test
+    public void testToEpochMinute() {
+        assertEquals(0L, FG_Time.toEpochMinute(1970, 1, 1, 0, 0));
+        assertEquals(-1L, FG_Time.toEpochMinute(1969, 12, 31, 23, 59));
+        LocalDateTime t = LocalDateTime.of(2012, 4, 17, 10, 5);
+        assertEquals(t.toEpochSecond(ZoneOffset.UTC) / 60L,
+                FG_Time.toEpochMinute(2012, 4, 17, 10, 5));
+    }
+
+    /**
+     * Test of getMinuteOfDay method, of class FG_Time, including before the
+     * epoch.
+     */
+    @Test
+    public void testGetMinuteOfDay() {
+        assertEquals(0, FG_Time.getMinuteOfDay(0L));
+        assertEquals(605, FG_Time.getMinuteOfDay(
+                FG_Time.toEpochMinute(2012, 4, 17, 10, 5)));
+        assertEquals(1439, FG_Time.getMinuteOfDay(-1L));
+        assertEquals(605, FG_Time.getMinuteOfDay(
+                FG_Time.toEpochMinute(1900, 2, 28, 10, 5)));
+    }
+
+    /**
+     * Test of toString and toHHMM methods, of class FG_Time, against
+     * {@link DateTimeFormatter}.
+     */
+    @Test
+    public void testToString() {
+        DateTimeFormatter f = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
+        LocalDateTime t = LocalDateTime.of(1900, 1, 1, 0, 0);
+        LocalDateTime end = LocalDateTime.of(2100, 1, 1, 0, 0);
+        while (t.isBefore(end)) {
+            long m = FG_Time.toEpochMinute(t.getYear(), t.getMonthValue(),
+                    t.getDayOfMonth(), t.getHour(), t.getMinute());
+            assertEquals(t.format(f), FG_Time.toString(m));
+            assertEquals(t.format(f).substring(11), FG_Time.toHHMM(m));
+            t = t.plusMinutes(7919);
+        }
+        assertEquals("1970-01-01 00:00", FG_Time.toString(0L));
+        assertEquals("1969-12-31 23:59", FG_Time.toString(-1L));
+        assertEquals("2000-02-29 09:07", FG_Time.toString(
+                FG_Time.toEpochMinute(2000, 2, 29, 9, 7)));
+    }
+}
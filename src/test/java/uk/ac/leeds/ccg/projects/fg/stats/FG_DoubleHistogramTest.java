@@ -0,0 +1,133 @@
+/*
+ * Copyright 2019 Centre for Computational Geography.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.leeds.ccg.projects.fg.stats;
+
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Tests for {@link FG_DoubleHistogram}.
+ *
+ * @author Andy Turner
+ * @version 1.0.0
+ */
+public class FG_DoubleHistogramTest {
+
+    /**
+     * Checks that the counts and sorted order of h are those of expected.
+     */
+    private static void assertHistogram(TreeMap<Double, Long> expected,
+            FG_DoubleHistogram h) {
+        assertEquals(expected.size(), h.size());
+        long total = 0L;
+        for (Map.Entry<Double, Long> e : expected.entrySet()) {
+            assertEquals(e.getValue().longValue(), h.getCount(e.getKey()),
+                    "count of " + e.getKey());
+            total += e.getValue();
+        }
+        assertEquals(total, h.getTotal());
+        h.sort();
+        double[] keys = h.getSortedKeys();
+        long[] counts = h.getSortedCounts();
+        int i = 0;
+        for (Map.Entry<Double, Long> e : expected.entrySet()) {
+            assertEquals(Double.doubleToLongBits(e.getKey()),
+                    Double.doubleToLongBits(keys[i]), "key " + i);
+            assertEquals(e.getValue().longValue(), counts[i], "count " + i);
+            i++;
+        }
+    }
+
+    /**
+     * Test of add and sort methods, of class FG_DoubleHistogram, against a
+     * TreeMap with the table growing from a small capacity.
+     */
+    @Test
+    public void testAdd() {
+        Random r = new Random(1L);
+        FG_DoubleHistogram h = new FG_DoubleHistogram(4);
+        TreeMap<Double, Long> expected = new TreeMap<>();
+        for (int i = 0; i < 10000; i++) {
+            double v = Math.round(r.nextGaussian() * 100.0d) / 10.0d;
+            h.add(v);
+            expected.merge(v, 1L, Long::sum);
+        }
+        assertHistogram(expected, h);
+        assertEquals(0L, h.getCount(1.0e9d));
+    }
+
+    /**
+     * Test of add and sort methods, of class FG_DoubleHistogram, for -0.0,
+     * 0.0, NaN and infinities.
+     */
+    @Test
+    public void testAddSpecialValues() {
+        FG_DoubleHistogram h = new FG_DoubleHistogram();
+        h.add(0.0d);
+        h.add(-0.0d, 2L);
+        h.add(Double.NaN);
+        // A NaN with other bits is the same value.
+        h.add(Double.longBitsToDouble(0x7ff8000000000001L));
+        h.add(Double.POSITIVE_INFINITY);
+        h.add(Double.NEGATIVE_INFINITY);
+        h.add(1.0d);
+        assertEquals(2L, h.getCount(-0.0d));
+        assertEquals(1L, h.getCount(0.0d));
+        assertEquals(2L, h.getCount(Double.NaN));
+        TreeMap<Double, Long> expected = new TreeMap<>();
+        expected.put(0.0d, 1L);
+        expected.put(-0.0d, 2L);
+        expected.put(Double.NaN, 2L);
+        expected.put(Double.POSITIVE_INFINITY, 1L);
+        expected.put(Double.NEGATIVE_INFINITY, 1L);
+        expected.put(1.0d, 1L);
+        // The order is -Infinity, -0.0, 0.0, 1.0, Infinity, NaN.
+        assertHistogram(expected, h);
+    }
+
+    /**
+     * Test of merge and clear methods, of class FG_DoubleHistogram.
+     */
+    @Test
+    public void testMergeAndClear() {
+        FG_DoubleHistogram a = new FG_DoubleHistogram();
+        FG_DoubleHistogram b = new FG_DoubleHistogram(4);
+        TreeMap<Double, Long> expected = new TreeMap<>();
+        for (int i = 0; i < 100; i++) {
+            double v = i % 7;
+            a.add(v);
+            expected.merge(v, 1L, Long::sum);
+            v = -0.5d * (i % 11);
+            b.add(v);
+            expected.merge(v, 1L, Long::sum);
+        }
+        a.merge(b);
+        assertHistogram(expected, a);
+        a.clear();
+        assertEquals(0, a.size());
+        assertEquals(0L, a.getTotal());
+        assertEquals(0L, a.getCount(1.0d));
+        a.add(2.0d);
+        a.add(-1.0d);
+        expected.clear();
+        expected.put(2.0d, 1L);
+        expected.put(-1.0d, 1L);
+        assertHistogram(expected, a);
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright 2019 Centre for Computational Geography.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.leeds.ccg.projects.fg.stats;
+
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Tests for {@link FG_LongHistogram}.
+ *
+ * @author Andy Turner
+ * @version 1.0.0
+ */
+public class FG_LongHistogramTest {
+
+    /**
+     * Checks that the counts and sorted order of h are those of expected.
+     */
+    private static void assertHistogram(TreeMap<Long, Long> expected,
+            FG_LongHistogram h) {
+        assertEquals(expected.size(), h.size());
+        long total = 0L;
+        for (Map.Entry<Long, Long> e : expected.entrySet()) {
+            assertEquals(e.getValue().longValue(), h.getCount(e.getKey()),
+                    "count of " + e.getKey());
+            total += e.getValue();
+        }
+        assertEquals(total, h.getTotal());
+        h.sort();
+        long[] keys = h.getSortedKeys();
+        long[] counts = h.getSortedCounts();
+        int i = 0;
+        for (Map.Entry<Long, Long> e : expected.entrySet()) {
+            assertEquals(e.getKey().longValue(), keys[i], "key " + i);
+            assertEquals(e.getValue().longValue(), counts[i], "count " + i);
+            i++;
+        }
+    }
+
+    /**
+     * Test of add and sort methods, of class FG_LongHistogram, against a
+     * TreeMap with the table growing from a small capacity.
+     */
+    @Test
+    public void testAdd() {
+        Random r = new Random(1L);
+        FG_LongHistogram h = new FG_LongHistogram(4);
+        TreeMap<Long, Long> expected = new TreeMap<>();
+        for (int i = 0; i < 10000; i++) {
+            long v = r.nextInt(2000) - 1000;
+            h.add(v);
+            expected.merge(v, 1L, Long::sum);
+        }
+        h.add(Long.MIN_VALUE, 3L);
+        expected.put(Long.MIN_VALUE, 3L);
+        h.add(Long.MAX_VALUE);
+        expected.put(Long.MAX_VALUE, 1L);
+        assertHistogram(expected, h);
+        assertEquals(0L, h.getCount(5000L));
+    }
+
+    /**
+     * Test of merge and clear methods, of class FG_LongHistogram.
+     */
+    @Test
+    public void testMergeAndClear() {
+        FG_LongHistogram a = new FG_LongHistogram();
+        FG_LongHistogram b = new FG_LongHistogram(4);
+        TreeMap<Long, Long> expected = new TreeMap<>();
+        for (int i = 0; i < 100; i++) {
+            long v = i % 7;
+            a.add(v);
+            expected.merge(v, 1L, Long::sum);
+            v = -(i % 11);
+            b.add(v);
+            expected.merge(v, 1L, Long::sum);
+        }
+        a.merge(b);
+        assertHistogram(expected, a);
+        a.clear();
+        assertEquals(0, a.size());
+        assertEquals(0L, a.getTotal());
+        assertEquals(0L, a.getCount(1L));
+        a.add(2L);
+        a.add(-1L);
+        expected.clear();
+        expected.put(2L, 1L);
+        expected.put(-1L, 1L);
+        assertHistogram(expected, a);
+    }
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright 2019 Centre for Computational Geography.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.leeds.ccg.projects.fg.stats;
+
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+import uk.ac.leeds.ccg.projects.fg.io.FG_GlacierSeries;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests for {@link FG_PolynomialSelection}.
+ *
+ * @author Andy Turner
+ * @version 1.0.0
+ */
+public class FG_PolynomialSelectionTest {
+
+    /**
+     * @param c The coefficients of a polynomial with the constant term first.
+     * @param noise The standard deviation of noise added to the y values.
+     * @return A series of 50 points on the polynomial with c.
+     */
+    private static FG_GlacierSeries getSeries(double[] c, double noise) {
+        Random r = new Random(1L);
+        FG_GlacierSeries s = new FG_GlacierSeries(1, 4);
+        for (int i = 0; i < 50; i++) {
+            double x = 0.1d + i * 0.02d;
+            double y = 0.0d;
+            for (int k = c.length - 1; k >= 0; k--) {
+                y = y * x + c[k];
+            }
+            s.add(x, y + noise * r.nextGaussian());
+        }
+        return s;
+    }
+
+    /**
+     * Test of the constructor, of class FG_PolynomialSelection, for points
+     * with noise.
+     */
+    @Test
+    public void testSelectNoisy() {
+        FG_PolynomialSelection s = new FG_PolynomialSelection(
+                getSeries(new double[]{1.0d, -3.0d, 2.0d}, 0.01d), 4);
+        assertEquals(2, s.getDegree());
+        for (int d = 1; d <= 4; d++) {
+            assertTrue(Double.isFinite(s.getAIC(d)));
+            assertTrue(Double.isFinite(s.getBIC(d)));
+        }
+    }
+
+    /**
+     * Test of the constructor, of class FG_PolynomialSelection, for points
+     * that a polynomial fits exactly. The lowest degree that fits exactly
+     * is chosen rather than being excluded for having SSE 0.
+     */
+    @Test
+    public void testSelectExact() {
+        FG_PolynomialSelection s = new FG_PolynomialSelection(
+                getSeries(new double[]{1.0d, -3.0d}, 0.0d), 4);
+        assertEquals(1, s.bestAICDegree);
+        assertEquals(1, s.bestBICDegree);
+        s = new FG_PolynomialSelection(
+                getSeries(new double[]{1.0d, -3.0d, 2.0d}, 0.0d), 4);
+        assertEquals(2, s.bestAICDegree);
+        assertEquals(2, s.bestBICDegree);
+        for (int d = 2; d <= 4; d++) {
+            assertTrue(Double.isFinite(s.getAIC(d)));
+        }
+    }
+
+    /**
+     * Test of the constructor, of class FG_PolynomialSelection, for points
+     * with the same y value, which have an AIC and BIC of -Infinity.
+     */
+    @Test
+    public void testSelectConstant() {
+        FG_PolynomialSelection s = new FG_PolynomialSelection(
+                getSeries(new double[]{2.5d}, 0.0d), 3);
+        assertEquals(Double.NEGATIVE_INFINITY, s.getAIC(1));
+        assertEquals(Double.NEGATIVE_INFINITY, s.getBIC(1));
+        assertEquals(1, s.bestAICDegree);
+        assertEquals(1, s.getDegree());
+    }
+
+    /**
+     * Test of the constructor, of class FG_PolynomialSelection, for degrees
+     * that cannot be fitted.
+     */
+    @Test
+    public void testSelectUnfitted() {
+        FG_GlacierSeries data = new FG_GlacierSeries(1, 3);
+        data.add(1.0d, 2.0d);
+        data.add(2.0d, 3.0d);
+        data.add(2.0d, 5.0d);
+        FG_PolynomialSelection s = new FG_PolynomialSelection(data, 3);
+        assertEquals(1, s.getDegree());
+        assertNull(s.getCoefficients(2));
+        assertTrue(Double.isNaN(s.getAIC(2)));
+        assertTrue(Double.isNaN(s.getMRMSE(3)));
+        data = new FG_GlacierSeries(1, 2);
+        data.add(1.0d, 2.0d);
+        data.add(1.0d, 3.0d);
+        s = new FG_PolynomialSelection(data, 2);
+        assertEquals(0, s.getDegree());
+    }
+}
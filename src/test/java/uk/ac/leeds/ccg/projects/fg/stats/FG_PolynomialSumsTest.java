@@ -0,0 +1,244 @@
+/*
+ * Copyright 2019 Centre for Computational Geography.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.leeds.ccg.projects.fg.stats;
+
+import java.util.Random;
+import org.apache.commons.math3.fitting.PolynomialCurveFitter;
+import org.apache.commons.math3.fitting.WeightedObservedPoints;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests for {@link FG_PolynomialSums}.
+ *
+ * @author Andy Turner
+ * @version 1.0.0
+ */
+public class FG_PolynomialSumsTest {
+
+    /**
+     * The relative tolerance for comparing coefficients with those of
+     * {@link PolynomialCurveFitter}, which stops iterating when its
+     * parameters change by less than 1e-10 relative.
+     */
+    private static final double FIT_TOLERANCE = 1.0e-6d;
+
+    /**
+     * The relative tolerance for comparing values calculated in different
+     * orders from the same points.
+     */
+    private static final double TOLERANCE = 1.0e-9d;
+
+    /**
+     * @param n The number of points.
+     * @param seed The seed.
+     * @return n (x, y) points near a downward parabola that peaks at x = 1.
+     */
+    private static double[][] getPoints(int n, long seed) {
+        Random r = new Random(seed);
+        double[][] p = new double[n][];
+        for (int i = 0; i < n; i++) {
+            double x = 0.2d + r.nextDouble() * 1.6d;
+            double y = -2.0d - 1.5d * (x - 1.0d) * (x - 1.0d)
+                    + r.nextGaussian() * 0.3d;
+            p[i] = new double[]{x, y};
+        }
+        return p;
+    }
+
+    private static FG_PolynomialSums getSums(int maxDegree, double[][] p,
+            int from, int to) {
+        FG_PolynomialSums s = new FG_PolynomialSums(maxDegree);
+        for (int i = from; i < to; i++) {
+            s.add(p[i][0], p[i][1]);
+        }
+        return s;
+    }
+
+    private static void assertClose(double expected, double actual,
+            double tolerance, String message) {
+        assertEquals(expected, actual, tolerance * Math.max(1.0d,
+                Math.abs(expected)), message);
+    }
+
+    private static void assertClose(double[] expected, double[] actual,
+            double tolerance) {
+        assertNotNull(actual);
+        assertEquals(expected.length, actual.length);
+        for (int i = 0; i < expected.length; i++) {
+            assertClose(expected[i], actual[i], tolerance, "coefficient " + i);
+        }
+    }
+
+    /**
+     * Test of fit method, of class FG_PolynomialSums.
+     */
+    @Test
+    public void testFit() {
+        for (int n : new int[]{10, 100, 10000}) {
+            double[][] p = getPoints(n, n);
+            FG_PolynomialSums s = getSums(3, p, 0, n);
+            WeightedObservedPoints obs = new WeightedObservedPoints();
+            for (double[] xy : p) {
+                obs.add(xy[0], xy[1]);
+            }
+            for (int d = 1; d <= 3; d++) {
+                double[] expected = PolynomialCurveFitter.create(d).fit(
+                        obs.toList());
+                assertClose(expected, s.fit(d), FIT_TOLERANCE);
+            }
+        }
+    }
+
+    /**
+     * Test of fit method, of class FG_PolynomialSums, for points on a
+     * polynomial.
+     */
+    @Test
+    public void testFitExact() {
+        FG_PolynomialSums s = new FG_PolynomialSums(3);
+        for (int i = 0; i < 20; i++) {
+            double x = i * 0.1d;
+            s.add(x, 3.0d - 2.0d * x + 0.5d * x * x);
+        }
+        assertClose(new double[]{3.0d, -2.0d, 0.5d}, s.fit(2), TOLERANCE);
+        assertClose(new double[]{3.0d, -2.0d, 0.5d, 0.0d}, s.fit(3),
+                TOLERANCE);
+        assertEquals(0.0d, s.getSumOfSquaredResiduals(2), TOLERANCE);
+    }
+
+    /**
+     * Test of fit method, of class FG_PolynomialSums, for points that do not
+     * determine the fit.
+     */
+    @Test
+    public void testFitSingular() {
+        // All x the same.
+        FG_PolynomialSums s = new FG_PolynomialSums(2);
+        for (int i = 0; i < 20; i++) {
+            s.add(0.5d, i * 0.1d);
+        }
+        assertClose(new double[]{0.95d}, s.fit(0), TOLERANCE);
+        assertNull(s.fit(1));
+        assertNull(s.fit(2));
+        assertTrue(Double.isNaN(s.getSumOfSquaredResiduals(1)));
+        // Two distinct x so only up to degree 1 is determined.
+        s = new FG_PolynomialSums(3);
+        for (int i = 0; i < 20; i++) {
+            s.add(i % 2 == 0 ? 0.5d : 1.5d, i * 0.1d);
+        }
+        assertClose(new double[]{0.85d, 0.1d}, s.fit(1), TOLERANCE);
+        assertNull(s.fit(2));
+        assertNull(s.fit(3));
+        assertTrue(Double.isNaN(s.getSumOfSquaredResiduals(2)));
+        assertTrue(Double.isNaN(s.getSumOfSquaredResiduals(3)));
+        // A single point.
+        s = new FG_PolynomialSums(1);
+        s.add(1.0d, 2.0d);
+        assertNull(s.fit(1));
+        // No points.
+        assertNull(new FG_PolynomialSums(1).fit(0));
+    }
+
+    /**
+     * Test of fit method, of class FG_PolynomialSums, for a degree greater
+     * than the maximum.
+     */
+    @Test
+    public void testFitDegreeTooHigh() {
+        FG_PolynomialSums s = getSums(2, getPoints(10, 1L), 0, 10);
+        assertThrows(IllegalArgumentException.class, () -> s.fit(3));
+    }
+
+    /**
+     * Test of getSumOfSquaredResiduals method, of class FG_PolynomialSums.
+     */
+    @Test
+    public void testGetSumOfSquaredResiduals() {
+        int n = 1000;
+        double[][] p = getPoints(n, 2L);
+        FG_PolynomialSums s = getSums(3, p, 0, n);
+        for (int d = 0; d <= 3; d++) {
+            double[] c = s.fit(d);
+            double expected = 0.0d;
+            for (double[] xy : p) {
+                double v = c[d];
+                for (int k = d - 1; k >= 0; k--) {
+                    v = v * xy[0] + c[k];
+                }
+                double r = xy[1] - v;
+                expected += r * r;
+            }
+            assertClose(expected, s.getSumOfSquaredResiduals(d), TOLERANCE,
+                    "degree " + d);
+        }
+    }
+
+    /**
+     * Test of merge method, of class FG_PolynomialSums.
+     */
+    @Test
+    public void testMerge() {
+        int n = 1000;
+        double[][] p = getPoints(n, 3L);
+        FG_PolynomialSums all = getSums(3, p, 0, n);
+        FG_PolynomialSums s = getSums(3, p, 0, 300);
+        s.merge(getSums(3, p, 300, 301));
+        s.merge(getSums(3, p, 301, n));
+        // Merging no points changes nothing.
+        s.merge(new FG_PolynomialSums(3));
+        assertEquals(n, s.n);
+        for (int d = 0; d <= 3; d++) {
+            assertClose(all.fit(d), s.fit(d), TOLERANCE);
+            assertClose(all.getSumOfSquaredResiduals(d),
+                    s.getSumOfSquaredResiduals(d), TOLERANCE, "degree " + d);
+        }
+        // Merging into no points copies.
+        FG_PolynomialSums e = new FG_PolynomialSums(3);
+        e.merge(all);
+        assertEquals(n, e.n);
+        for (int d = 0; d <= 3; d++) {
+            assertClose(all.fit(d), e.fit(d), TOLERANCE);
+        }
+    }
+
+    /**
+     * Test of merge method, of class FG_PolynomialSums, for parts that are
+     * each singular but together determine the fit.
+     */
+    @Test
+    public void testMergeSingular() {
+        FG_PolynomialSums s = new FG_PolynomialSums(2);
+        FG_PolynomialSums all = new FG_PolynomialSums(2);
+        for (int part = 0; part < 3; part++) {
+            FG_PolynomialSums t = new FG_PolynomialSums(2);
+            double x = 0.5d * (part + 1);
+            for (int i = 0; i < 5; i++) {
+                double y = x * x + i * 0.01d;
+                t.add(x, y);
+                all.add(x, y);
+            }
+            assertNull(t.fit(1));
+            s.merge(t);
+        }
+        assertClose(all.fit(2), s.fit(2), TOLERANCE);
+        assertClose(new double[]{0.02d, 0.0d, 1.0d}, s.fit(2), TOLERANCE);
+    }
+}
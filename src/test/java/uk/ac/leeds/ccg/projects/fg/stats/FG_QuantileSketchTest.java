@@ -0,0 +1,168 @@
+/*
+ * Copyright 2019 Centre for Computational Geography.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.leeds.ccg.projects.fg.stats;
+
+import java.util.Arrays;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests for {@link FG_QuantileSketch}.
+ *
+ * @author Andy Turner
+ * @version 1.0.0
+ */
+public class FG_QuantileSketchTest {
+
+    private static final double[] PS = {0.0d, 0.01d, 0.05d, 0.1d, 0.25d,
+        0.5d, 0.75d, 0.9d, 0.95d, 0.99d, 1.0d};
+
+    /**
+     * Checks that each quantile of s is within the relative error of the
+     * exact quantile of v.
+     */
+    private static void assertWithinError(double[] v, FG_QuantileSketch s) {
+        double[] sorted = v.clone();
+        Arrays.sort(sorted);
+        // Allow for rounding in calculating the bucket values.
+        double e = s.relativeError * (1.0d + 1.0e-9d);
+        for (double p : PS) {
+            double expected = sorted[(int) FG_Quantiles.getIndex(p,
+                    sorted.length)];
+            double actual = s.get(p);
+            assertTrue(Math.abs(actual - expected) <= e * Math.abs(expected),
+                    "quantile " + p + " " + actual + " is not within "
+                    + s.relativeError + " of " + expected);
+        }
+    }
+
+    private static FG_QuantileSketch getSketch(double relativeError,
+            double[] v, int from, int to) {
+        FG_QuantileSketch s = new FG_QuantileSketch(relativeError);
+        for (int i = from; i < to; i++) {
+            s.add(v[i]);
+        }
+        return s;
+    }
+
+    /**
+     * Test of get method, of class FG_QuantileSketch, for positive values.
+     */
+    @Test
+    public void testGetPositive() {
+        Random r = new Random(1L);
+        double[] v = new double[100000];
+        for (int i = 0; i < v.length; i++) {
+            v[i] = 1.0d + 29.0d * r.nextDouble();
+        }
+        for (double e : new double[]{0.001d, 0.01d, 0.1d}) {
+            FG_QuantileSketch s = getSketch(e, v, 0, v.length);
+            assertEquals(v.length, s.getN());
+            assertWithinError(v, s);
+        }
+        FG_QuantileSketch s = getSketch(0.001d, v, 0, v.length);
+        assertTrue(s.getNumberOfBuckets() < 2000);
+    }
+
+    /**
+     * Test of get method, of class FG_QuantileSketch, for negative, zero and
+     * positive values.
+     */
+    @Test
+    public void testGetMixed() {
+        Random r = new Random(2L);
+        double[] v = new double[10000];
+        for (int i = 0; i < v.length; i++) {
+            v[i] = i % 10 == 0 ? 0.0d : r.nextGaussian() * 1000.0d;
+        }
+        FG_QuantileSketch s = getSketch(0.01d, v, 0, v.length);
+        assertWithinError(v, s);
+        double min = Arrays.stream(v).min().getAsDouble();
+        double max = Arrays.stream(v).max().getAsDouble();
+        // The extremes are exact.
+        assertEquals(min, s.getMin());
+        assertEquals(max, s.getMax());
+    }
+
+    /**
+     * Test of get method, of class FG_QuantileSketch, for a single value,
+     * which every quantile gives exactly.
+     */
+    @Test
+    public void testGetSingleValue() {
+        FG_QuantileSketch s = new FG_QuantileSketch(0.01d);
+        s.add(7.3d, 5L);
+        for (double p : PS) {
+            assertEquals(7.3d, s.get(p));
+        }
+    }
+
+    /**
+     * Test of merge method, of class FG_QuantileSketch.
+     */
+    @Test
+    public void testMerge() {
+        Random r = new Random(3L);
+        double[] v = new double[10000];
+        for (int i = 0; i < v.length; i++) {
+            v[i] = r.nextGaussian() * 10.0d + 5.0d;
+        }
+        FG_QuantileSketch all = getSketch(0.005d, v, 0, v.length);
+        FG_QuantileSketch s = getSketch(0.005d, v, 0, 2500);
+        s.merge(getSketch(0.005d, v, 2500, 2501));
+        s.merge(getSketch(0.005d, v, 2501, v.length));
+        s.merge(new FG_QuantileSketch(0.005d));
+        assertEquals(all.getN(), s.getN());
+        assertEquals(all.getMin(), s.getMin());
+        assertEquals(all.getMax(), s.getMax());
+        assertEquals(all.getNumberOfBuckets(), s.getNumberOfBuckets());
+        // Merging is exact so the quantiles are the same.
+        for (double p : PS) {
+            assertEquals(all.get(p), s.get(p), "quantile " + p);
+        }
+        assertWithinError(v, s);
+    }
+
+    /**
+     * Test of merge method, of class FG_QuantileSketch, for sketches with
+     * different relative errors.
+     */
+    @Test
+    public void testMergeDifferentError() {
+        FG_QuantileSketch s = new FG_QuantileSketch(0.01d);
+        assertThrows(IllegalArgumentException.class,
+                () -> s.merge(new FG_QuantileSketch(0.02d)));
+    }
+
+    /**
+     * Test of the constructor and add and get methods, of class
+     * FG_QuantileSketch, for invalid arguments.
+     */
+    @Test
+    public void testInvalid() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new FG_QuantileSketch(0.0d));
+        assertThrows(IllegalArgumentException.class,
+                () -> new FG_QuantileSketch(1.0d));
+        FG_QuantileSketch s = new FG_QuantileSketch(0.01d);
+        assertEquals(Double.NaN, s.get(0.5d));
+        assertThrows(IllegalArgumentException.class, () -> s.add(Double.NaN));
+        assertThrows(IllegalArgumentException.class, () -> s.get(1.5d));
+    }
+}
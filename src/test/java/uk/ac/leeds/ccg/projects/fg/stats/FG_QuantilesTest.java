@@ -0,0 +1,155 @@
+/*
+ * Copyright 2019 Centre for Computational Geography.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.leeds.ccg.projects.fg.stats;
+
+import java.util.Arrays;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests for {@link FG_Quantiles}.
+ *
+ * @author Andy Turner
+ * @version 1.0.0
+ */
+public class FG_QuantilesTest {
+
+    private static final double[] PS = {0.0d, 0.01d, 0.05d, 0.1d, 0.25d,
+        0.29d, 0.5d, 0.75d, 0.9d, 0.95d, 0.99d, 1.0d};
+
+    /**
+     * Checks the quantiles of v on both the sorted and the quickselect path
+     * against those of v sorted.
+     */
+    private static void assertQuantiles(double[] v) {
+        FG_DoubleHistogram h = new FG_DoubleHistogram();
+        for (double x : v) {
+            h.add(x);
+        }
+        double[] s = v.clone();
+        Arrays.sort(s);
+        FG_Quantiles sorted = new FG_Quantiles(h, 1.0d);
+        FG_Quantiles selected = new FG_Quantiles(h, 0.0d);
+        assertTrue(sorted.isSorted());
+        assertFalse(selected.isSorted());
+        assertEquals(v.length, sorted.getN());
+        assertEquals(h.size(), selected.size());
+        for (double p : PS) {
+            double expected = s[(int) FG_Quantiles.getIndex(p, s.length)];
+            assertEquals(expected, sorted.get(p), "sorted " + p);
+            assertEquals(expected, selected.get(p), "selected " + p);
+        }
+        // Repeated selections on the reordered values give the same results.
+        double[] qs = selected.get(PS);
+        for (int i = PS.length - 1; i >= 0; i--) {
+            assertEquals(qs[i], selected.get(PS[i]), "reselected " + PS[i]);
+        }
+    }
+
+    /**
+     * Test of getIndex method, of class FG_Quantiles.
+     */
+    @Test
+    public void testGetIndex() {
+        assertEquals(0L, FG_Quantiles.getIndex(0.0d, 10L));
+        assertEquals(5L, FG_Quantiles.getIndex(0.5d, 10L));
+        // The median of an even number of values is the upper middle value.
+        assertEquals(2L, FG_Quantiles.getIndex(0.5d, 4L));
+        assertEquals(2L, FG_Quantiles.getIndex(0.5d, 5L));
+        assertEquals(1L, FG_Quantiles.getIndex(0.05d, 20L));
+        assertEquals(0L, FG_Quantiles.getIndex(0.05d, 19L));
+        // p * n is truncated as a double so 0.29 * 100 gives 28.
+        assertEquals(28L, FG_Quantiles.getIndex(0.29d, 100L));
+        // 1 gives the last index.
+        assertEquals(9L, FG_Quantiles.getIndex(1.0d, 10L));
+        assertEquals(0L, FG_Quantiles.getIndex(1.0d, 1L));
+    }
+
+    /**
+     * Test of get method, of class FG_Quantiles, for values with few
+     * distinct values.
+     */
+    @Test
+    public void testGetFewDistinct() {
+        Random r = new Random(1L);
+        double[] v = new double[10000];
+        for (int i = 0; i < v.length; i++) {
+            v[i] = r.nextInt(50) * 0.5d;
+        }
+        assertQuantiles(v);
+        FG_DoubleHistogram h = new FG_DoubleHistogram();
+        for (double x : v) {
+            h.add(x);
+        }
+        assertTrue(new FG_Quantiles(h).isSorted());
+    }
+
+    /**
+     * Test of get method, of class FG_Quantiles, for values that are mostly
+     * distinct.
+     */
+    @Test
+    public void testGetMostlyDistinct() {
+        Random r = new Random(2L);
+        for (int n : new int[]{1, 2, 3, 10, 1001}) {
+            double[] v = new double[n];
+            for (int i = 0; i < n; i++) {
+                v[i] = r.nextGaussian();
+            }
+            if (n > 2) {
+                v[1] = v[0];
+            }
+            assertQuantiles(v);
+        }
+    }
+
+    /**
+     * Test of get method, of class FG_Quantiles, for -0.0, 0.0 and NaN which
+     * are ordered as by {@link Double#compare(double, double)}.
+     */
+    @Test
+    public void testGetSpecialValues() {
+        double[] v = {1.0d, -0.0d, 0.0d, Double.NaN, -1.0d, 0.0d, -0.0d,
+            Double.NEGATIVE_INFINITY, Double.NaN, 2.0d};
+        assertQuantiles(v);
+        FG_DoubleHistogram h = new FG_DoubleHistogram();
+        for (double x : v) {
+            h.add(x);
+        }
+        FG_Quantiles q = new FG_Quantiles(h, 0.0d);
+        assertEquals(Double.NEGATIVE_INFINITY, q.get(0.0d));
+        assertEquals(-0.0d, q.get(0.2d));
+        assertEquals(0.0d, q.get(0.4d));
+        assertEquals(Double.NaN, q.get(1.0d));
+    }
+
+    /**
+     * Test of get method, of class FG_Quantiles, for no values and for
+     * quantiles out of range.
+     */
+    @Test
+    public void testGetInvalid() {
+        FG_Quantiles q = new FG_Quantiles(new FG_DoubleHistogram());
+        assertEquals(Double.NaN, q.get(0.5d));
+        assertThrows(IllegalArgumentException.class, () -> q.get(-0.1d));
+        assertThrows(IllegalArgumentException.class, () -> q.get(1.1d));
+        assertThrows(IllegalArgumentException.class, () -> q.get(Double.NaN));
+    }
+}